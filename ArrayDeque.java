@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -15,25 +16,183 @@ public class ArrayDeque {
 
     private int offset; // The index of the front element in the circular array.
 
+    private final GrowthPolicy policy; // When and how far to grow or shrink.
+
+    private final int min_capacity; // Shrinking never goes below the initial capacity.
+
+    private long resize_count; // Number of times the array was reallocated.
+
+    private long copied_count; // Elements copied by those reallocations.
+
     /**
      * Constructs an empty ArrayDeque with an initial capacity of 1.
      */
     public ArrayDeque() {
-        array = new Object[1];
+        this(1, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty ArrayDeque with the given initial capacity.
+     *
+     * @param initial_capacity Initial array length, at least 1.
+     */
+    public ArrayDeque(int initial_capacity) {
+        this(initial_capacity, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty ArrayDeque with the given initial capacity and growth
+     * policy.
+     *
+     * @param initial_capacity Initial array length, at least 1.
+     * @param policy           Growth/shrink policy.
+     */
+    public ArrayDeque(int initial_capacity, GrowthPolicy policy) {
+        if (initial_capacity < 1)
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initial_capacity);
+        array = new Object[GrowthPolicy.ceilPowerOfTwo(initial_capacity)];
         n = offset = 0;
+        this.policy = policy;
+        this.min_capacity = array.length;
     }
 
     /**
-     * Resizes the underlying array when it becomes full or too sparse.
-     * Doubles the capacity when expanding, and resets offset to 0.
-     * Called automatically by add/remove operations when needed.
+     * Moves the elements into a new array of the given capacity (>= n),
+     * rounded up to a power of two, front element first, and resets offset
+     * to 0. The ring is copied as its two contiguous runs.
      */
-    public void resize() {
-        Object[] new_array = new Object[Math.max(1, n * 2)];
-        for (int i = 0; i < n; i++)
-            new_array[i] = array[(offset + i) % array.length];
+    private void resize(int capacity) {
+        Object[] new_array = new Object[GrowthPolicy.ceilPowerOfTwo(capacity)];
+        int first = Math.min(n, array.length - offset); // elements before the wrap point
+        System.arraycopy(array, offset, new_array, 0, first);
+        System.arraycopy(array, 0, new_array, first, n - first);
         array = new_array;
         offset = 0;
+        resize_count++;
+        copied_count += n;
+    }
+
+    /**
+     * Clears count slots of the ring starting at physical index start, as at
+     * most two contiguous runs, so vacated slots do not keep objects alive.
+     */
+    private void release(int start, int count) {
+        int first = Math.min(count, array.length - start);
+        Arrays.fill(array, start, start + first, null);
+        Arrays.fill(array, 0, count - first, null);
+    }
+
+    /**
+     * Grows the array by the growth policy if it is full.
+     */
+    private void growIfFull() {
+        if (n + 1 > array.length)
+            resize(policy.grow(array.length, n + 1));
+    }
+
+    /**
+     * Shrinks the array if the growth policy considers it too sparse.
+     */
+    private void shrinkIfSparse() {
+        int capacity = GrowthPolicy.ceilPowerOfTwo(policy.shrink(array.length, n, min_capacity));
+        if (capacity < array.length)
+            resize(capacity);
+    }
+
+    /**
+     * Grows the array, if needed, so it holds at least capacity elements
+     * without further reallocation.
+     *
+     * @param capacity Required capacity.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > array.length)
+            resize(capacity);
+    }
+
+    /**
+     * Shrinks the array to the smallest power of two that holds the current
+     * elements.
+     */
+    public void trimToSize() {
+        if (array.length > GrowthPolicy.ceilPowerOfTwo(n))
+            resize(n);
+    }
+
+    /**
+     * Returns the length of the backing array.
+     *
+     * @return The capacity of the deque.
+     */
+    public int capacity() {
+        return array.length;
+    }
+
+    /**
+     * Estimates the bytes this deque keeps reachable besides its elements:
+     * the backing array. Vacated slots are cleared, so only the n live
+     * elements are retained through it.
+     *
+     * @return Estimated size of the backing array in bytes.
+     */
+    public long retainedBytesEstimate() {
+        return GrowthPolicy.referenceArrayBytes(array.length);
+    }
+
+    /**
+     * Returns how many times the backing array has been reallocated.
+     *
+     * @return The number of resizes.
+     */
+    public long resizeCount() {
+        return resize_count;
+    }
+
+    /**
+     * Returns how many elements those reallocations have copied in total.
+     *
+     * @return The number of copied elements.
+     */
+    public long copiedCount() {
+        return copied_count;
+    }
+
+    /**
+     * Moves the count elements starting at physical index start one slot
+     * toward the front of the ring. Done as at most two arraycopy runs plus
+     * the single element that crosses the wrap point.
+     */
+    private void shiftTowardFront(int start, int count) {
+        Object[] a = array;
+        int first = start == 0 ? 0 : Math.min(count, a.length - start); // run before the wrap point
+        if (first > 0)
+            System.arraycopy(a, start, a, start - 1, first);
+        int rest = count - first; // run from index 0, its first element wraps to the end
+        if (rest > 0) {
+            a[a.length - 1] = a[0];
+            System.arraycopy(a, 1, a, 0, rest - 1);
+        }
+    }
+
+    /**
+     * Moves the count elements starting at physical index start one slot
+     * toward the back of the ring, highest first. Done as at most two
+     * arraycopy runs plus the single element that crosses the wrap point.
+     */
+    private void shiftTowardBack(int start, int count) {
+        Object[] a = array;
+        int first = Math.min(count, a.length - start); // run before the wrap point
+        int rest = count - first;
+        if (rest > 0)
+            System.arraycopy(a, 0, a, 1, rest);
+        if (start + first == a.length) { // the run reaches the end: its last element wraps to 0
+            if (first > 0) {
+                a[0] = a[a.length - 1];
+                System.arraycopy(a, start, a, start + 1, first - 1);
+            }
+        } else {
+            System.arraycopy(a, start, a, start + 1, first);
+        }
     }
 
     /**
@@ -42,9 +201,8 @@ public class ArrayDeque {
      * @param data The element to add.
      */
     public void addLast(Object data) {
-        if (n + 1 > array.length)
-            resize();
-        array[(offset + n) % array.length] = data;
+        growIfFull();
+        array[(offset + n) & (array.length - 1)] = data;
         n++;
     }
 
@@ -54,9 +212,8 @@ public class ArrayDeque {
      * @param data The element to add.
      */
     public void addFirst(Object data) {
-        if (n + 1 > array.length)
-            resize();
-        offset = offset == 0 ? array.length - 1 : offset - 1;
+        growIfFull();
+        offset = (offset - 1) & (array.length - 1);
         array[offset] = data;
         n++;
     }
@@ -71,20 +228,18 @@ public class ArrayDeque {
     public void add(int index, Object data) {
         if (index < 0 || index > n)
             throw new IndexOutOfBoundsException();
-        if (n + 1 > array.length)
-            resize();
+        growIfFull();
 
+        int mask = array.length - 1;
         if (index < n / 2) {
             // Shift elements toward front
-            offset = offset == 0 ? array.length - 1 : offset - 1;
-            for (int k = 0; k < index; k++)
-                array[(offset + k) % array.length] = array[(k + offset + 1) % array.length];
+            shiftTowardFront(offset, index);
+            offset = (offset - 1) & mask;
         } else {
             // Shift elements toward back
-            for (int k = n; k > index; k--)
-                array[(offset + k) % array.length] = array[(k + offset - 1) % array.length];
+            shiftTowardBack((offset + index) & mask, n - index);
         }
-        array[(offset + index) % array.length] = data;
+        array[(offset + index) & mask] = data;
         n++;
     }
 
@@ -95,10 +250,10 @@ public class ArrayDeque {
     public void removeFirst() {
         if (n == 0)
             return;
-        offset = (offset + 1) % array.length;
+        array[offset] = null; // Do not keep the removed object reachable
+        offset = (offset + 1) & (array.length - 1);
         n--;
-        if (n <= array.length / 3)
-            resize();
+        shrinkIfSparse();
     }
 
     /**
@@ -109,8 +264,8 @@ public class ArrayDeque {
         if (n == 0)
             return;
         n--;
-        if (n <= array.length / 3)
-            resize();
+        array[(offset + n) & (array.length - 1)] = null; // Do not keep the removed object reachable
+        shrinkIfSparse();
     }
 
     /**
@@ -123,17 +278,17 @@ public class ArrayDeque {
         if (index < 0 || index >= n)
             return;
 
+        int mask = array.length - 1;
         if (index < n / 2) {
-            for (int k = index; k > 0; k--)
-                array[(k + offset) % array.length] = array[(k + offset - 1) % array.length];
-            offset++;
+            shiftTowardBack(offset, index);
+            array[offset] = null; // the old front slot is vacated
+            offset = (offset + 1) & mask;
         } else {
-            for (int k = index; k < n - 1; k++)
-                array[(k + offset) % array.length] = array[(k + offset + 1) % array.length];
+            shiftTowardFront((offset + index + 1) & mask, n - index - 1);
+            array[(offset + n - 1) & mask] = null; // the old back slot is vacated
         }
         n--;
-        if (n <= array.length / 3)
-            resize();
+        shrinkIfSparse();
     }
 
     /**
@@ -146,7 +301,7 @@ public class ArrayDeque {
     public Object get(int index) {
         if (index < 0 || index >= n)
             throw new IndexOutOfBoundsException();
-        return array[(offset + index) % array.length];
+        return array[(offset + index) & (array.length - 1)];
     }
 
     /**
@@ -162,6 +317,7 @@ public class ArrayDeque {
      * Removes all elements from the deque and resets offset.
      */
     public void clear() {
+        release(offset, n);
         n = 0;
         offset = 0;
     }
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -12,24 +13,145 @@ public class ArrayQueue {
     private int n; // The current number of elements in the queue.
     private int offset; // The index of the front element in the circular array.
 
+    private final GrowthPolicy policy; // When and how far to grow or shrink.
+
+    private final int min_capacity; // Shrinking never goes below the initial capacity.
+
+    private long resize_count; // Number of times the array was reallocated.
+
+    private long copied_count; // Elements copied by those reallocations.
+
     /**
-     * Constructs an empty ArrayQueue with initial capacity of 1.
+     * Constructs an empty ArrayQueue with an initial capacity of 1.
      */
     public ArrayQueue() {
-        arr = new Object[1];
+        this(1, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty ArrayQueue with the given initial capacity.
+     *
+     * @param initial_capacity Initial array length, at least 1.
+     */
+    public ArrayQueue(int initial_capacity) {
+        this(initial_capacity, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty ArrayQueue with the given initial capacity and growth
+     * policy.
+     *
+     * @param initial_capacity Initial array length, at least 1.
+     * @param policy           Growth/shrink policy.
+     */
+    public ArrayQueue(int initial_capacity, GrowthPolicy policy) {
+        if (initial_capacity < 1)
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initial_capacity);
+        arr = new Object[GrowthPolicy.ceilPowerOfTwo(initial_capacity)];
         n = offset = 0;
+        this.policy = policy;
+        this.min_capacity = arr.length;
     }
 
     /**
-     * Resizes the underlying array when it becomes full or too sparse.
-     * Doubles the capacity when expanding and resets offset to 0.
+     * Moves the elements into a new array of the given capacity (>= n),
+     * rounded up to a power of two, front element first, and resets offset
+     * to 0. The ring is copied as its two contiguous runs.
      */
-    public void resize() {
-        Object[] new_array = new Object[Math.max(1, n * 2)];
-        for (int i = 0; i < n; i++)
-            new_array[i] = arr[(offset + i) % arr.length];
+    private void resize(int capacity) {
+        Object[] new_array = new Object[GrowthPolicy.ceilPowerOfTwo(capacity)];
+        int first = Math.min(n, arr.length - offset); // elements before the wrap point
+        System.arraycopy(arr, offset, new_array, 0, first);
+        System.arraycopy(arr, 0, new_array, first, n - first);
         arr = new_array;
         offset = 0;
+        resize_count++;
+        copied_count += n;
+    }
+
+    /**
+     * Clears count slots of the ring starting at physical index start, as at
+     * most two contiguous runs, so vacated slots do not keep objects alive.
+     */
+    private void release(int start, int count) {
+        int first = Math.min(count, arr.length - start);
+        Arrays.fill(arr, start, start + first, null);
+        Arrays.fill(arr, 0, count - first, null);
+    }
+
+    /**
+     * Grows the array by the growth policy if it is full.
+     */
+    private void growIfFull() {
+        if (n + 1 > arr.length)
+            resize(policy.grow(arr.length, n + 1));
+    }
+
+    /**
+     * Shrinks the array if the growth policy considers it too sparse.
+     */
+    private void shrinkIfSparse() {
+        int capacity = GrowthPolicy.ceilPowerOfTwo(policy.shrink(arr.length, n, min_capacity));
+        if (capacity < arr.length)
+            resize(capacity);
+    }
+
+    /**
+     * Grows the array, if needed, so it holds at least capacity elements
+     * without further reallocation.
+     *
+     * @param capacity Required capacity.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > arr.length)
+            resize(capacity);
+    }
+
+    /**
+     * Shrinks the array to the smallest power of two that holds the current
+     * elements.
+     */
+    public void trimToSize() {
+        if (arr.length > GrowthPolicy.ceilPowerOfTwo(n))
+            resize(n);
+    }
+
+    /**
+     * Returns the length of the backing array.
+     *
+     * @return The capacity of the queue.
+     */
+    public int capacity() {
+        return arr.length;
+    }
+
+    /**
+     * Estimates the bytes this queue keeps reachable besides its elements:
+     * the backing array. Vacated slots are cleared, so only the n live
+     * elements are retained through it.
+     *
+     * @return Estimated size of the backing array in bytes.
+     */
+    public long retainedBytesEstimate() {
+        return GrowthPolicy.referenceArrayBytes(arr.length);
+    }
+
+    /**
+     * Returns how many times the backing array has been reallocated.
+     *
+     * @return The number of resizes.
+     */
+    public long resizeCount() {
+        return resize_count;
+    }
+
+    /**
+     * Returns how many elements those reallocations have copied in total.
+     *
+     * @return The number of copied elements.
+     */
+    public long copiedCount() {
+        return copied_count;
     }
 
     /**
@@ -38,9 +160,8 @@ public class ArrayQueue {
      * @param data The element to add.
      */
     public void addLast(Object data) {
-        if (n + 1 > arr.length)
-            resize();
-        arr[(offset + n) % arr.length] = data;
+        growIfFull();
+        arr[(offset + n) & (arr.length - 1)] = data;
         n++;
     }
 
@@ -50,9 +171,8 @@ public class ArrayQueue {
      * @param data The element to add.
      */
     public void addFirst(Object data) {
-        if (n + 1 > arr.length)
-            resize();
-        offset = offset == 0 ? arr.length - 1 : offset - 1;
+        growIfFull();
+        offset = (offset - 1) & (arr.length - 1);
         arr[offset] = data;
         n++;
     }
@@ -66,7 +186,8 @@ public class ArrayQueue {
         if (isEmpty())
             return null;
         Object val = arr[offset];
-        offset = (offset + 1) % arr.length;
+        arr[offset] = null; // Do not keep the removed object reachable
+        offset = (offset + 1) & (arr.length - 1);
         n--;
         return val;
     }
@@ -79,10 +200,11 @@ public class ArrayQueue {
     public Object removeLast() {
         if (isEmpty())
             return null;
-        Object val = arr[(offset + n - 1) % arr.length];
+        int last = (offset + n - 1) & (arr.length - 1);
+        Object val = arr[last];
+        arr[last] = null; // Do not keep the removed object reachable
         n--;
-        if (n <= arr.length / 3) // shrink if sparse
-            resize();
+        shrinkIfSparse();
         return val;
     }
 
@@ -96,7 +218,7 @@ public class ArrayQueue {
     public Object get(int index) {
         if (index < 0 || index >= n)
             throw new IndexOutOfBoundsException();
-        return arr[(offset + index) % arr.length];
+        return arr[(offset + index) & (arr.length - 1)];
     }
 
     /**
@@ -112,6 +234,7 @@ public class ArrayQueue {
      * Removes all elements from the queue.
      */
     public void clear() {
+        release(offset, n);
         n = 0;
         offset = 0;
     }
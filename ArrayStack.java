@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -5,29 +6,117 @@ import java.util.Scanner;
  * storage.
  * Supports basic operations like push, pop, peek, and resizing.
  */
-public class ArrayStack implements ListInterface {
+public class ArrayStack implements ListInterface<Object> {
     private Object[] list; // Underlying array for stack elements
     private int n; // Current number of elements in the stack
 
+    private final GrowthPolicy policy; // When and how far to grow or shrink
+    private final int min_capacity; // Shrinking never goes below the initial capacity
+    private long resize_count; // Number of times the array was reallocated
+    private long copied_count; // Elements copied by those reallocations
+
     /**
      * Default constructor initializes stack with capacity 1.
      */
     public ArrayStack() {
-        list = new Object[1];
+        this(1, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty stack with the given initial capacity.
+     *
+     * @param initial_capacity Initial array length, at least 1
+     */
+    public ArrayStack(int initial_capacity) {
+        this(initial_capacity, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty stack with the given initial capacity and growth
+     * policy.
+     *
+     * @param initial_capacity Initial array length, at least 1
+     * @param policy           Growth/shrink policy
+     */
+    public ArrayStack(int initial_capacity, GrowthPolicy policy) {
+        if (initial_capacity < 1)
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initial_capacity);
+        list = new Object[initial_capacity];
         n = 0;
+        this.policy = policy;
+        this.min_capacity = initial_capacity;
     }
 
     /**
-     * Doubles the current array size when capacity is exceeded or shrinks it when
-     * necessary.
-     * Ensures capacity never falls below 1.
+     * Moves the elements into a new array of the given capacity (>= n).
      */
-    private void resize() {
-        int newSize = Math.max(1, n * 2); // Avoids creating a zero-length array
-        Object[] new_array = new Object[newSize];
+    private void resize(int capacity) {
+        Object[] new_array = new Object[capacity];
         // Copy existing elements into the new array
         System.arraycopy(list, 0, new_array, 0, n);
         list = new_array;
+        resize_count++;
+        copied_count += n;
+    }
+
+    /**
+     * Shrinks the array if the growth policy considers it too sparse.
+     */
+    private void shrinkIfSparse() {
+        int capacity = policy.shrink(list.length, n, min_capacity);
+        if (capacity < list.length)
+            resize(capacity);
+    }
+
+    /**
+     * Grows the array, if needed, so it holds at least capacity elements
+     * without further reallocation.
+     *
+     * @param capacity Required capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > list.length)
+            resize(capacity);
+    }
+
+    /**
+     * Shrinks the array to exactly the current number of elements (at least 1).
+     */
+    public void trimToSize() {
+        if (list.length > Math.max(1, n))
+            resize(Math.max(1, n));
+    }
+
+    /**
+     * Returns the length of the backing array.
+     */
+    public int capacity() {
+        return list.length;
+    }
+
+    /**
+     * Estimates the bytes this stack keeps reachable besides its elements:
+     * the backing array. Vacated slots are cleared, so only the n live
+     * elements are retained through it.
+     *
+     * @return Estimated size of the backing array in bytes.
+     */
+    public long retainedBytesEstimate() {
+        return GrowthPolicy.referenceArrayBytes(list.length);
+    }
+
+    /**
+     * Returns how many times the backing array has been reallocated.
+     */
+    public long resizeCount() {
+        return resize_count;
+    }
+
+    /**
+     * Returns how many elements those reallocations have copied in total.
+     */
+    public long copiedCount() {
+        return copied_count;
     }
 
     /**
@@ -44,11 +133,10 @@ public class ArrayStack implements ListInterface {
 
         // Resize if full
         if (n + 1 > list.length)
-            resize();
+            resize(policy.grow(list.length, n + 1));
 
         // Shift elements to the right
-        for (int i = n; i > index; i--)
-            list[i] = list[i - 1];
+        System.arraycopy(list, index, list, index + 1, n - index);
 
         // Insert new element
         list[index] = data;
@@ -78,13 +166,12 @@ public class ArrayStack implements ListInterface {
         Object removed_obj = list[index];
 
         // Shift elements left to fill the gap
-        for (int i = index; i < n - 1; i++)
-            list[i] = list[i + 1];
+        System.arraycopy(list, index + 1, list, index, n - index - 1);
         n--;
+        list[n] = null; // Do not keep the vacated slot's object reachable
 
         // Optional shrink: resize if the stack becomes sparse
-        if (n <= list.length / 3)
-            resize();
+        shrinkIfSparse();
 
         return removed_obj;
     }
@@ -147,6 +234,7 @@ public class ArrayStack implements ListInterface {
      */
     @Override
     public void clear() {
+        Arrays.fill(list, 0, n, null);
         n = 0;
     }
 
@@ -176,9 +264,57 @@ public class ArrayStack implements ListInterface {
     }
 
     public void addAll(Object toAdd[]) {
-        for (Object object : toAdd) {
-            add(object);
+        addAll(n, toAdd, 0, toAdd.length);
+    }
+
+    /**
+     * Inserts src[off .. off+len) at the specified index with one capacity
+     * check: if the array must grow, the elements before and after index are
+     * copied straight into place in the new array, otherwise the tail is
+     * shifted right once by len.
+     *
+     * @param index Position of the first inserted element
+     * @param src   Source array
+     * @param off   First element of src to insert
+     * @param len   Number of elements to insert
+     */
+    public void addAll(int index, Object[] src, int off, int len) {
+        if (index < 0 || index > n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        if (off < 0 || len < 0 || off > src.length - len)
+            throw new IndexOutOfBoundsException("Range out of bounds: " + off + ".." + (off + len));
+
+        if (n + len > list.length) {
+            Object[] new_array = new Object[policy.grow(list.length, n + len)];
+            System.arraycopy(list, 0, new_array, 0, index);
+            System.arraycopy(list, index, new_array, index + len, n - index);
+            list = new_array;
+            resize_count++;
+            copied_count += n;
+        } else {
+            System.arraycopy(list, index, list, index + len, n - index);
         }
+        System.arraycopy(src, off, list, index, len);
+        n += len;
+    }
+
+    /**
+     * Removes the elements at positions from (inclusive) to to (exclusive)
+     * with a single shift of the tail.
+     *
+     * @param from First position to remove
+     * @param to   Position after the last one to remove
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > n || from > to)
+            throw new IndexOutOfBoundsException("Range out of bounds: " + from + ".." + to);
+
+        System.arraycopy(list, to, list, from, n - to);
+        Arrays.fill(list, n - (to - from), n, null); // Release the vacated tail
+        n -= to - from;
+
+        // Optional shrink: resize if the stack becomes sparse
+        shrinkIfSparse();
     }
 
     public void reverse() {
@@ -193,13 +329,10 @@ public class ArrayStack implements ListInterface {
     }
 
     public Object[] subList(int from, int to) {
-        // int wrapped_from = (from + n) % list.length;
-        // int wrapped_to = (from + n) % list.length;
-        // assume all input is ok
+        if (from < 0 || to > n || from > to)
+            throw new IndexOutOfBoundsException("Range out of bounds: " + from + ".." + to);
         Object[] to_return = new Object[to - from];
-        for (int i = 0; i < to - from; i++) {
-            to_return[i] = get(from + i);
-        }
+        System.arraycopy(list, from, to_return, 0, to - from);
         return to_return;
     }
 
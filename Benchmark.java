@@ -0,0 +1,1671 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark is a self-contained micro-benchmark driver for the ADTs in this
+ * repository. For every structure it builds an instance of the requested size
+ * and measures steady-state throughput of append, prepend, middle
+ * insert/remove, random get, contains and find, together with the number of
+ * bytes allocated per operation (the same per-thread counter that JMH's
+ * "-prof gc" reports).
+ *
+ * Multi-threaded trials (queues handing items between threads) report total
+ * throughput for each thread count instead of a size.
+ *
+ * Retention trials fill a structure with small objects, drain it and report
+ * how much heap the drained structure still holds after a full GC: slots
+ * that still reference removed elements show up here.
+ *
+ * Usage: java Benchmark [--structures=a,b] [--ops=x,y] [--sizes=1000,1000000]
+ * [--time=ms]
+ */
+public class Benchmark {
+
+    /** Default structure sizes, from 1K up to 10M elements. */
+    static final int[] DEFAULT_SIZES = { 1_000, 10_000, 100_000, 1_000_000, 10_000_000 };
+
+    static final int WARMUP_MILLIS = 200;
+
+    static int measureMillis = 500;
+
+    /** Result sink so the JIT cannot eliminate the measured work. */
+    static volatile Object sink;
+
+    /** Primitive result sink, so primitive results are not boxed into sink. */
+    static volatile long primitiveSink;
+
+    /** Precomputed random indices so the RNG is not part of the measurement. */
+    static final int RANDOM_MASK = (1 << 16) - 1;
+
+    /** A single measured operation; i is the iteration counter. */
+    interface Op {
+        void run(int i);
+    }
+
+    /** Creates the operation to measure against a structure of the given size. */
+    interface OpFactory {
+        Op create(int size, int[] random);
+    }
+
+    /** A named operation that a structure supports. */
+    static class Case {
+        final String structure;
+        final String op;
+        final OpFactory factory;
+
+        Case(String structure, String op, OpFactory factory) {
+            this.structure = structure;
+            this.op = op;
+            this.factory = factory;
+        }
+    }
+
+    static final List<Case> CASES = new ArrayList<>();
+
+    static void register(String structure, String op, OpFactory factory) {
+        CASES.add(new Case(structure, op, factory));
+    }
+
+    /**
+     * A multi-threaded trial: sets up, then runs with the given number of
+     * threads for the given time and returns the number of completed operations.
+     */
+    interface Trial {
+        long run(int threads, long millis) throws InterruptedException;
+    }
+
+    /** Deadline (System.nanoTime) millis from now; taken after a trial's setup. */
+    static long deadlineAfter(long millis) {
+        return System.nanoTime() + millis * 1_000_000L;
+    }
+
+    /** A named multi-threaded trial and the thread counts it is run at. */
+    static class ThreadedCase {
+        final String structure;
+        final String op;
+        final int[] threadCounts;
+        final Trial trial;
+
+        ThreadedCase(String structure, String op, int[] threadCounts, Trial trial) {
+            this.structure = structure;
+            this.op = op;
+            this.threadCounts = threadCounts;
+            this.trial = trial;
+        }
+    }
+
+    static final List<ThreadedCase> THREADED_CASES = new ArrayList<>();
+
+    static void registerThreaded(String structure, String op, int[] threadCounts, Trial trial) {
+        THREADED_CASES.add(new ThreadedCase(structure, op, threadCounts, trial));
+    }
+
+    /**
+     * Fills a structure of the given size, empties it and returns it, so the
+     * heap it keeps reachable can be measured.
+     */
+    interface Drain {
+        Object run(int size);
+    }
+
+    /** A named retention trial. */
+    static class RetentionCase {
+        final String structure;
+        final String op;
+        final Drain drain;
+
+        RetentionCase(String structure, String op, Drain drain) {
+            this.structure = structure;
+            this.op = op;
+            this.drain = drain;
+        }
+    }
+
+    static final List<RetentionCase> RETENTION_CASES = new ArrayList<>();
+
+    /** Retention trials fill with 48-byte payloads; larger sizes are skipped. */
+    static final int MAX_RETENTION_SIZE = 1_000_000;
+
+    static void registerRetention(String structure, String op, Drain drain) {
+        RETENTION_CASES.add(new RetentionCase(structure, op, drain));
+    }
+
+    /** Starts one thread per task, waits for all of them and rethrows failures. */
+    static void runThreads(Runnable... tasks) throws InterruptedException {
+        Thread[] threads = new Thread[tasks.length];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < tasks.length; t++) {
+            threads[t] = new Thread(tasks[t]);
+            threads[t].setUncaughtExceptionHandler((th, e) -> failure[0] = e);
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        if (failure[0] != null)
+            throw new IllegalStateException("Benchmark thread failed", failure[0]);
+    }
+
+    /** Minimal non-blocking queue surface shared by the contended-queue trials. */
+    interface ConcurrentQueue {
+        boolean offer(Object data);
+
+        Object poll();
+    }
+
+    /**
+     * Contended queue trial: half the threads offer, the other half poll (a
+     * single thread alternates). Returns the number of elements consumed.
+     */
+    static Trial queueTrial(java.util.function.Supplier<ConcurrentQueue> factory) {
+        return (threads, millis) -> {
+            ConcurrentQueue q = factory.get();
+            long deadline = deadlineAfter(millis);
+            java.util.concurrent.atomic.AtomicLong consumed = new java.util.concurrent.atomic.AtomicLong();
+            Runnable producer = () -> {
+                Integer item = 1;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 256; k++)
+                        if (!q.offer(item))
+                            Thread.onSpinWait();
+            };
+            Runnable consumer = () -> {
+                long count = 0;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 256; k++)
+                        if (q.poll() != null)
+                            count++;
+                consumed.addAndGet(count);
+            };
+            if (threads == 1) {
+                runThreads(() -> {
+                    long count = 0;
+                    Integer item = 1;
+                    while (System.nanoTime() < deadline)
+                        for (int k = 0; k < 256; k++)
+                            if (q.offer(item) && q.poll() != null)
+                                count++;
+                    consumed.addAndGet(count);
+                });
+            } else {
+                Runnable[] tasks = new Runnable[threads];
+                for (int t = 0; t < threads; t++)
+                    tasks[t] = t % 2 == 0 ? producer : consumer;
+                runThreads(tasks);
+            }
+            return consumed.get();
+        };
+    }
+
+    /** Minimal ordered-set surface shared by the concurrent skip list trials. */
+    interface ConcurrentSet {
+        boolean add(Integer key);
+
+        boolean remove(Integer key);
+
+        boolean contains(Integer key);
+    }
+
+    static final int SET_KEYS = 1 << 18; // keys are drawn from [0, SET_KEYS)
+
+    /**
+     * Mixed read/write trial over a set prefilled with half of the key range:
+     * readPercent of operations are lookups, the rest alternate add/remove.
+     */
+    static Trial setTrial(java.util.function.Supplier<ConcurrentSet> factory, int readPercent) {
+        return (threads, millis) -> {
+            ConcurrentSet set = factory.get();
+            for (int k = 0; k < SET_KEYS; k += 2)
+                set.add(k);
+            long deadline = deadlineAfter(millis);
+            java.util.concurrent.atomic.AtomicLong done = new java.util.concurrent.atomic.AtomicLong();
+            Runnable worker = () -> {
+                java.util.concurrent.ThreadLocalRandom rng = java.util.concurrent.ThreadLocalRandom.current();
+                long count = 0;
+                boolean found = false;
+                while (System.nanoTime() < deadline) {
+                    for (int k = 0; k < 256; k++) {
+                        Integer key = rng.nextInt(SET_KEYS);
+                        int dice = rng.nextInt(100);
+                        if (dice < readPercent)
+                            found ^= set.contains(key);
+                        else if ((dice & 1) == 0)
+                            found ^= set.add(key);
+                        else
+                            found ^= set.remove(key);
+                    }
+                    count += 256;
+                }
+                sink = found;
+                done.addAndGet(count);
+            };
+            Runnable[] tasks = new Runnable[threads];
+            Arrays.fill(tasks, worker);
+            runThreads(tasks);
+            return done.get();
+        };
+    }
+
+    /** Minimal event-log surface shared by the append-only log trials. */
+    interface EventLog {
+        void append(Object event);
+
+        Object get(int index);
+
+        int size();
+    }
+
+    /**
+     * Event-log trial: one thread appends, the others read random published
+     * entries. Returns the number of appends plus reads.
+     */
+    static Trial logTrial(java.util.function.Supplier<EventLog> factory) {
+        return (threads, millis) -> {
+            EventLog log = factory.get();
+            log.append(Boolean.TRUE);
+            long deadline = deadlineAfter(millis);
+            java.util.concurrent.atomic.AtomicLong done = new java.util.concurrent.atomic.AtomicLong();
+            Runnable appender = () -> {
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int k = 0; k < 256; k++)
+                        log.append(Boolean.TRUE);
+                    count += 256;
+                }
+                done.addAndGet(count);
+            };
+            Runnable reader = () -> {
+                java.util.concurrent.ThreadLocalRandom rng = java.util.concurrent.ThreadLocalRandom.current();
+                long count = 0;
+                Object last = null;
+                while (System.nanoTime() < deadline) {
+                    for (int k = 0; k < 256; k++)
+                        last = log.get(rng.nextInt(log.size()));
+                    count += 256;
+                }
+                sink = last;
+                done.addAndGet(count);
+            };
+            Runnable[] tasks = new Runnable[threads];
+            Arrays.fill(tasks, reader);
+            tasks[0] = appender;
+            runThreads(tasks);
+            return done.get();
+        };
+    }
+
+    static ConcurrentSet concurrentSkipList() {
+        ConcurrentSkipList list = new ConcurrentSkipList();
+        return new ConcurrentSet() {
+            public boolean add(Integer key) {
+                return list.add(key);
+            }
+
+            public boolean remove(Integer key) {
+                return list.remove(key);
+            }
+
+            public boolean contains(Integer key) {
+                return list.contains(key);
+            }
+        };
+    }
+
+    static ConcurrentSet jdkSkipListSet() {
+        java.util.concurrent.ConcurrentSkipListSet<Integer> set = new java.util.concurrent.ConcurrentSkipListSet<>();
+        return new ConcurrentSet() {
+            public boolean add(Integer key) {
+                return set.add(key);
+            }
+
+            public boolean remove(Integer key) {
+                return set.remove(key);
+            }
+
+            public boolean contains(Integer key) {
+                return set.contains(key);
+            }
+        };
+    }
+
+    // ==================== FORK/JOIN WORKLOADS ====================
+
+    static final int FORK_THRESHOLD = 4096;
+
+    static long[] workload(int size) {
+        long[] data = new long[size];
+        Random rng = new Random(7);
+        for (int i = 0; i < size; i++)
+            data[i] = rng.nextLong();
+        return data;
+    }
+
+    /** Merges the sorted runs a[lo, mid) and a[mid, hi) through tmp. */
+    static void merge(long[] a, long[] tmp, int lo, int mid, int hi) {
+        System.arraycopy(a, lo, tmp, lo, hi - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi)
+            a[k++] = tmp[i] <= tmp[j] ? tmp[i++] : tmp[j++];
+        while (i < mid)
+            a[k++] = tmp[i++];
+        while (j < hi)
+            a[k++] = tmp[j++];
+    }
+
+    static class SchedulerSum extends ForkJoinScheduler.Task<Long> {
+        final long[] a;
+        final int lo, hi;
+
+        SchedulerSum(long[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hi - lo <= FORK_THRESHOLD) {
+                long sum = 0;
+                for (int i = lo; i < hi; i++)
+                    sum += a[i];
+                return sum;
+            }
+            int mid = (lo + hi) >>> 1;
+            SchedulerSum left = new SchedulerSum(a, lo, mid);
+            left.fork();
+            long right = new SchedulerSum(a, mid, hi).compute();
+            return left.join() + right;
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    static class PoolSum extends java.util.concurrent.RecursiveTask<Long> {
+        final long[] a;
+        final int lo, hi;
+
+        PoolSum(long[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hi - lo <= FORK_THRESHOLD) {
+                long sum = 0;
+                for (int i = lo; i < hi; i++)
+                    sum += a[i];
+                return sum;
+            }
+            int mid = (lo + hi) >>> 1;
+            PoolSum left = new PoolSum(a, lo, mid);
+            left.fork();
+            long right = new PoolSum(a, mid, hi).compute();
+            return left.join() + right;
+        }
+    }
+
+    static class SchedulerSort extends ForkJoinScheduler.Task<Void> {
+        final long[] a, tmp;
+        final int lo, hi;
+
+        SchedulerSort(long[] a, long[] tmp, int lo, int hi) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Void compute() {
+            if (hi - lo <= FORK_THRESHOLD) {
+                Arrays.sort(a, lo, hi);
+                return null;
+            }
+            int mid = (lo + hi) >>> 1;
+            SchedulerSort left = new SchedulerSort(a, tmp, lo, mid);
+            left.fork();
+            new SchedulerSort(a, tmp, mid, hi).compute();
+            left.join();
+            merge(a, tmp, lo, mid, hi);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    static class PoolSort extends java.util.concurrent.RecursiveAction {
+        final long[] a, tmp;
+        final int lo, hi;
+
+        PoolSort(long[] a, long[] tmp, int lo, int hi) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= FORK_THRESHOLD) {
+                Arrays.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            PoolSort left = new PoolSort(a, tmp, lo, mid);
+            left.fork();
+            new PoolSort(a, tmp, mid, hi).compute();
+            left.join();
+            merge(a, tmp, lo, mid, hi);
+        }
+    }
+
+    // ==================== STRUCTURE BUILDERS ====================
+
+    static ArrayStack arrayStack(int size) {
+        ArrayStack s = new ArrayStack();
+        for (int i = 0; i < size; i++)
+            s.add(i);
+        return s;
+    }
+
+    static IntArrayStack intArrayStack(int size) {
+        IntArrayStack s = new IntArrayStack();
+        for (int i = 0; i < size; i++)
+            s.add(i);
+        return s;
+    }
+
+    static LongArrayStack longArrayStack(int size) {
+        LongArrayStack s = new LongArrayStack();
+        for (int i = 0; i < size; i++)
+            s.add((long) i);
+        return s;
+    }
+
+    static ArrayQueue arrayQueue(int size) {
+        ArrayQueue q = new ArrayQueue();
+        for (int i = 0; i < size; i++)
+            q.addLast(i);
+        return q;
+    }
+
+    static ArrayDeque arrayDeque(int size) {
+        ArrayDeque d = new ArrayDeque();
+        for (int i = 0; i < size; i++)
+            d.addLast(i);
+        return d;
+    }
+
+    static DualArrayStack dualArrayStack(int size) {
+        DualArrayStack d = new DualArrayStack();
+        for (int i = 0; i < size; i++)
+            d.addLast(i);
+        return d;
+    }
+
+    static RootishArrayStack<Integer> rootishArrayStack(int size) {
+        RootishArrayStack<Integer> r = new RootishArrayStack<>();
+        for (int i = 0; i < size; i++)
+            r.add(i);
+        return r;
+    }
+
+    static TieredRootishArrayStack<Integer> tieredRootishArrayStack(int size) {
+        TieredRootishArrayStack<Integer> r = new TieredRootishArrayStack<>();
+        for (int i = 0; i < size; i++)
+            r.add(i);
+        return r;
+    }
+
+    /** Off-heap blocks are freed by the GC once a case's instance is dropped. */
+    static OffHeapRootishArrayStack offHeapRootishArrayStack(int size) {
+        OffHeapRootishArrayStack r = new OffHeapRootishArrayStack();
+        for (int i = 0; i < size; i++)
+            r.add(i);
+        return r;
+    }
+
+    static IntRootishArrayStack intRootishArrayStack(int size) {
+        IntRootishArrayStack r = new IntRootishArrayStack();
+        for (int i = 0; i < size; i++)
+            r.add(i);
+        return r;
+    }
+
+    /** Skip lists hold the even keys 0, 2, ..., 2(size-1) so odd keys miss. */
+    static SkipList skipList(int size) {
+        SkipList s = new SkipList();
+        for (int i = 0; i < size; i++)
+            s.add(2 * i);
+        return s;
+    }
+
+    static IntSkipList intSkipList(int size) {
+        IntSkipList s = new IntSkipList();
+        for (int i = 0; i < size; i++)
+            s.add(2 * i);
+        return s;
+    }
+
+    static LongSkipList longSkipList(int size) {
+        LongSkipList s = new LongSkipList();
+        for (int i = 0; i < size; i++)
+            s.add(2L * i);
+        return s;
+    }
+
+    /** find() over a precomputed, pre-boxed key stream, with or without finger search. */
+    static Op fingerFind(int size, boolean finger, java.util.function.IntUnaryOperator stream) {
+        SkipList s = skipList(size);
+        s.setFingerSearch(finger);
+        Integer[] keys = new Integer[RANDOM_MASK + 1];
+        for (int k = 0; k < keys.length; k++)
+            keys[k] = stream.applyAsInt(k);
+        return i -> sink = s.find(keys[i & RANDOM_MASK]);
+    }
+
+    /** Index files built so far, one per size, shared by the MappedIntSkipList cases. */
+    static final java.util.Map<Integer, java.nio.file.Path> mappedFiles = new java.util.HashMap<>();
+
+    /** Returns a cleanly closed index file holding the even keys below 2 * size. */
+    static java.nio.file.Path mappedFile(int size) {
+        return mappedFiles.computeIfAbsent(size, k -> {
+            try {
+                java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("skiplist");
+                java.nio.file.Path file = dir.resolve("index");
+                try (MappedIntSkipList s = MappedIntSkipList.open(file)) {
+                    for (int i = 0; i < size; i++)
+                        s.add(2 * i);
+                }
+                for (String name : new String[] { "index", "index.wal" })
+                    dir.resolve(name).toFile().deleteOnExit();
+                dir.toFile().deleteOnExit();
+                return file;
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    static MappedIntSkipList openMapped(java.nio.file.Path file) {
+        try {
+            return MappedIntSkipList.open(file);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    static void closeMapped(MappedIntSkipList s) {
+        try {
+            s.close();
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    static VersionedSkipList versionedSkipList(int size) {
+        VersionedSkipList s = new VersionedSkipList();
+        for (int i = 0; i < size; i++)
+            s.add(2 * i);
+        return s;
+    }
+
+    static SkipListMap<Integer, Integer> skipListMap(int size) {
+        SkipListMap<Integer, Integer> m = new SkipListMap<>();
+        for (int i = 0; i < size; i++)
+            m.put(2 * i, i);
+        return m;
+    }
+
+    static java.util.TreeMap<Integer, Integer> treeMap(int size) {
+        java.util.TreeMap<Integer, Integer> m = new java.util.TreeMap<>();
+        for (int i = 0; i < size; i++)
+            m.put(2 * i, i);
+        return m;
+    }
+
+    /** Fills add with size distinct 32-byte arrays, the payloads of the retention trials. */
+    static void fillPayload(java.util.function.Consumer<Object> add, int size) {
+        for (int i = 0; i < size; i++)
+            add.accept(new byte[32]);
+    }
+
+    static SkipList_1 skipList1(int size) {
+        SkipList_1 s = new SkipList_1();
+        for (int i = 0; i < size; i++)
+            s.add(2 * i);
+        return s;
+    }
+
+    static {
+        // ---- ArrayStack ----
+        register("ArrayStack", "append", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            return i -> {
+                s.add(i);
+                sink = s.remove(s.size() - 1);
+            };
+        });
+        register("ArrayStack", "prepend", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            return i -> {
+                s.add(0, i);
+                sink = s.remove(0);
+            };
+        });
+        register("ArrayStack", "middle", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            return i -> {
+                s.add(size / 2, i);
+                sink = s.remove(size / 2);
+            };
+        });
+        register("ArrayStack", "get", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            return i -> sink = s.get(rnd[i & RANDOM_MASK]);
+        });
+        register("ArrayStack", "contains", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            return i -> sink = s.contains(rnd[i & RANDOM_MASK]);
+        });
+
+        register("ArrayStack", "bulkLoad", (size, rnd) -> {
+            Object[] src = new Object[size];
+            for (int k = 0; k < size; k++)
+                src[k] = k;
+            return i -> {
+                ArrayStack s = new ArrayStack();
+                s.addAll(src);
+                sink = s;
+            };
+        });
+        register("ArrayStack", "range1000", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            Object[] block = s.subList(0, Math.min(1000, size));
+            return i -> {
+                int from = (size - block.length) / 2;
+                s.removeRange(from, from + block.length);
+                s.addAll(from, block, 0, block.length);
+            };
+        });
+        register("ArrayStack", "subList1000", (size, rnd) -> {
+            ArrayStack s = arrayStack(size);
+            int len = Math.min(1000, size);
+            return i -> sink = s.subList(rnd[i & RANDOM_MASK] % (size - len + 1), rnd[i & RANDOM_MASK] % (size - len + 1) + len);
+        });
+
+        register("ArrayStack", "build-presized", (size, rnd) -> i -> {
+            ArrayStack s = new ArrayStack(size);
+            for (int k = 0; k < size; k++)
+                s.add(k);
+            sink = s;
+        });
+        register("ArrayStack", "pushpop-empty", (size, rnd) -> {
+            ArrayStack s = new ArrayStack();
+            return i -> {
+                s.add(i);
+                sink = s.remove(0); // used to reallocate on every pop to empty
+            };
+        });
+
+        // ---- IntArrayStack / LongArrayStack (compare against boxed ArrayStack) ----
+        register("IntArrayStack", "build", (size, rnd) -> i -> sink = intArrayStack(size));
+        register("LongArrayStack", "build", (size, rnd) -> i -> sink = longArrayStack(size));
+        register("ArrayStack", "build", (size, rnd) -> i -> sink = arrayStack(size));
+        register("IntArrayStack", "append", (size, rnd) -> {
+            IntArrayStack s = intArrayStack(size);
+            return i -> {
+                s.add(i);
+                primitiveSink = s.remove(s.size() - 1);
+            };
+        });
+        register("LongArrayStack", "append", (size, rnd) -> {
+            LongArrayStack s = longArrayStack(size);
+            return i -> {
+                s.add((long) i);
+                primitiveSink = s.remove(s.size() - 1);
+            };
+        });
+        register("IntArrayStack", "middle", (size, rnd) -> {
+            IntArrayStack s = intArrayStack(size);
+            return i -> {
+                s.add(size / 2, i);
+                s.remove(size / 2);
+            };
+        });
+        register("IntArrayStack", "get", (size, rnd) -> {
+            IntArrayStack s = intArrayStack(size);
+            return i -> primitiveSink = s.get(rnd[i & RANDOM_MASK]);
+        });
+        register("LongArrayStack", "get", (size, rnd) -> {
+            LongArrayStack s = longArrayStack(size);
+            return i -> primitiveSink = s.get(rnd[i & RANDOM_MASK]);
+        });
+        register("IntArrayStack", "contains", (size, rnd) -> {
+            IntArrayStack s = intArrayStack(size);
+            return i -> sink = s.contains(rnd[i & RANDOM_MASK]);
+        });
+
+        // ---- ArrayQueue ----
+        register("ArrayQueue", "append", (size, rnd) -> {
+            ArrayQueue q = arrayQueue(size);
+            return i -> {
+                q.addLast(i);
+                sink = q.removeLast();
+            };
+        });
+        register("ArrayQueue", "prepend", (size, rnd) -> {
+            ArrayQueue q = arrayQueue(size);
+            return i -> {
+                q.addFirst(i);
+                sink = q.removeFirst();
+            };
+        });
+        register("ArrayQueue", "get", (size, rnd) -> {
+            ArrayQueue q = arrayQueue(size);
+            return i -> sink = q.get(rnd[i & RANDOM_MASK]);
+        });
+
+        // ---- SpscArrayQueue vs. synchronized ArrayQueue (one producer, one consumer) ----
+        registerThreaded("SpscArrayQueue", "handoff", new int[] { 2 }, (threads, millis) -> {
+            SpscArrayQueue q = new SpscArrayQueue(1 << 14);
+            long deadline = deadlineAfter(millis);
+            long[] consumed = new long[1];
+            runThreads(() -> {
+                Integer item = 1;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 1024; k++)
+                        while (!q.addLast(item))
+                            Thread.onSpinWait();
+            }, () -> {
+                long count = 0;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 1024; k++)
+                        if (q.removeFirst() != null)
+                            count++;
+                consumed[0] = count;
+            });
+            return consumed[0];
+        });
+        registerThreaded("SpscArrayQueue", "batch", new int[] { 2 }, (threads, millis) -> {
+            SpscArrayQueue q = new SpscArrayQueue(1 << 14);
+            long deadline = deadlineAfter(millis);
+            long[] consumed = new long[1];
+            Object[] batch = new Object[256];
+            Arrays.fill(batch, 1);
+            runThreads(() -> {
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 64; k++)
+                        if (q.offerAll(batch) == 0)
+                            Thread.onSpinWait();
+            }, () -> {
+                long count = 0;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 64; k++)
+                        count += q.drainTo(item -> sink = item, 256);
+                consumed[0] = count;
+            });
+            return consumed[0];
+        });
+        registerThreaded("ArrayQueue(sync)", "handoff", new int[] { 2 }, (threads, millis) -> {
+            ArrayQueue q = new ArrayQueue();
+            long deadline = deadlineAfter(millis);
+            long[] consumed = new long[1];
+            runThreads(() -> {
+                Integer item = 1;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 1024; k++)
+                        synchronized (q) {
+                            if (q.size() < 1 << 14)
+                                q.addLast(item);
+                        }
+            }, () -> {
+                long count = 0;
+                while (System.nanoTime() < deadline)
+                    for (int k = 0; k < 1024; k++)
+                        synchronized (q) {
+                            if (q.removeFirst() != null)
+                                count++;
+                        }
+                consumed[0] = count;
+            });
+            return consumed[0];
+        });
+
+        // ---- MpmcArrayQueue vs. JDK concurrent queues ----
+        int[] contention = { 1, 2, 4, 8, 16, 32, 64 };
+        registerThreaded("MpmcArrayQueue", "contended", contention, queueTrial(() -> {
+            MpmcArrayQueue q = new MpmcArrayQueue(1 << 14);
+            return new ConcurrentQueue() {
+                public boolean offer(Object data) {
+                    return q.offer(data);
+                }
+
+                public Object poll() {
+                    return q.poll();
+                }
+            };
+        }));
+        registerThreaded("ArrayBlockingQueue", "contended", contention, queueTrial(() -> {
+            java.util.concurrent.ArrayBlockingQueue<Object> q = new java.util.concurrent.ArrayBlockingQueue<>(1 << 14);
+            return new ConcurrentQueue() {
+                public boolean offer(Object data) {
+                    return q.offer(data);
+                }
+
+                public Object poll() {
+                    return q.poll();
+                }
+            };
+        }));
+        registerThreaded("ConcurrentLinkedQ", "contended", contention, queueTrial(() -> {
+            java.util.concurrent.ConcurrentLinkedQueue<Object> q = new java.util.concurrent.ConcurrentLinkedQueue<>();
+            return new ConcurrentQueue() {
+                public boolean offer(Object data) {
+                    return q.offer(data);
+                }
+
+                public Object poll() {
+                    return q.poll();
+                }
+            };
+        }));
+
+        // ---- ForkJoinScheduler (WorkStealingDeque) vs. ForkJoinPool; ops = jobs over 1M longs ----
+        int[] parallelism = { 1, 2, 4, 8 };
+        long[] forkJoinInput = workload(1 << 20);
+        registerThreaded("ForkJoinScheduler", "sum", parallelism, (threads, millis) -> {
+            ForkJoinScheduler scheduler = new ForkJoinScheduler(threads);
+            long deadline = deadlineAfter(millis);
+            long jobs = 0;
+            while (System.nanoTime() < deadline) {
+                sink = scheduler.invoke(new SchedulerSum(forkJoinInput, 0, forkJoinInput.length));
+                jobs++;
+            }
+            scheduler.shutdown();
+            return jobs;
+        });
+        registerThreaded("ForkJoinPool", "sum", parallelism, (threads, millis) -> {
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+            long deadline = deadlineAfter(millis);
+            long jobs = 0;
+            while (System.nanoTime() < deadline) {
+                sink = pool.invoke(new PoolSum(forkJoinInput, 0, forkJoinInput.length));
+                jobs++;
+            }
+            pool.shutdown();
+            return jobs;
+        });
+        registerThreaded("ForkJoinScheduler", "sort", parallelism, (threads, millis) -> {
+            ForkJoinScheduler scheduler = new ForkJoinScheduler(threads);
+            long deadline = deadlineAfter(millis);
+            long[] tmp = new long[forkJoinInput.length];
+            long jobs = 0;
+            while (System.nanoTime() < deadline) {
+                long[] a = forkJoinInput.clone();
+                scheduler.invoke(new SchedulerSort(a, tmp, 0, a.length));
+                jobs++;
+            }
+            scheduler.shutdown();
+            return jobs;
+        });
+        registerThreaded("ForkJoinPool", "sort", parallelism, (threads, millis) -> {
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+            long deadline = deadlineAfter(millis);
+            long[] tmp = new long[forkJoinInput.length];
+            long jobs = 0;
+            while (System.nanoTime() < deadline) {
+                long[] a = forkJoinInput.clone();
+                pool.invoke(new PoolSort(a, tmp, 0, a.length));
+                jobs++;
+            }
+            pool.shutdown();
+            return jobs;
+        });
+
+        // ---- ConcurrentSkipList vs. ConcurrentSkipListSet (90%, 50% and 10% reads) ----
+        int[] readers = { 1, 2, 4, 8, 16 };
+        registerThreaded("ConcurrentSkipList", "read90", readers, setTrial(Benchmark::concurrentSkipList, 90));
+        registerThreaded("ConcurrentSkipListSet", "read90", readers, setTrial(Benchmark::jdkSkipListSet, 90));
+        registerThreaded("ConcurrentSkipList", "read50", readers, setTrial(Benchmark::concurrentSkipList, 50));
+        registerThreaded("ConcurrentSkipListSet", "read50", readers, setTrial(Benchmark::jdkSkipListSet, 50));
+        registerThreaded("ConcurrentSkipList", "read10", readers, setTrial(Benchmark::concurrentSkipList, 10));
+        registerThreaded("ConcurrentSkipListSet", "read10", readers, setTrial(Benchmark::jdkSkipListSet, 10));
+
+        // ---- ConcurrentRootishLog vs. a lock-guarded ArrayList (1 appender, n-1 readers) ----
+        int[] logThreads = { 1, 2, 4, 8 };
+        registerThreaded("ConcurrentRootishLog", "log", logThreads, logTrial(() -> {
+            ConcurrentRootishLog<Object> log = new ConcurrentRootishLog<>();
+            return new EventLog() {
+                public void append(Object event) {
+                    log.append(event);
+                }
+
+                public Object get(int index) {
+                    return log.get(index);
+                }
+
+                public int size() {
+                    return log.size();
+                }
+            };
+        }));
+        registerThreaded("ArrayList(sync)", "log", logThreads, logTrial(() -> {
+            java.util.ArrayList<Object> list = new java.util.ArrayList<>();
+            return new EventLog() {
+                public synchronized void append(Object event) {
+                    list.add(event);
+                }
+
+                public synchronized Object get(int index) {
+                    return list.get(index);
+                }
+
+                public synchronized int size() {
+                    return list.size();
+                }
+            };
+        }));
+
+        // ---- ArrayDeque ----
+        register("ArrayDeque", "append", (size, rnd) -> {
+            ArrayDeque d = arrayDeque(size);
+            return i -> {
+                d.addLast(i);
+                d.removeLast();
+            };
+        });
+        register("ArrayDeque", "prepend", (size, rnd) -> {
+            ArrayDeque d = arrayDeque(size);
+            return i -> {
+                d.addFirst(i);
+                d.removeFirst();
+            };
+        });
+        register("ArrayDeque", "middle", (size, rnd) -> {
+            ArrayDeque d = arrayDeque(size);
+            return i -> {
+                d.add(size / 2, i);
+                d.remove(size / 2);
+            };
+        });
+        register("ArrayDeque", "get", (size, rnd) -> {
+            ArrayDeque d = arrayDeque(size);
+            return i -> sink = d.get(rnd[i & RANDOM_MASK]);
+        });
+        register("ArrayDeque", "index-rand", (size, rnd) -> {
+            ArrayDeque d = arrayDeque(size);
+            return i -> {
+                int index = rnd[i & RANDOM_MASK] % size;
+                d.add(index, i);
+                d.remove(index);
+            };
+        });
+
+        // ---- Retained heap after draining (NO_SHRINK keeps the array, as after a burst) ----
+        registerRetention("ArrayStack", "clear", size -> {
+            ArrayStack s = new ArrayStack(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(s::add, size);
+            s.clear();
+            return s;
+        });
+        registerRetention("ArrayStack", "pop-all", size -> {
+            ArrayStack s = new ArrayStack(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(s::add, size);
+            while (s.size() > 0)
+                s.remove(s.size() - 1);
+            return s;
+        });
+        registerRetention("ArrayQueue", "drain-first", size -> {
+            ArrayQueue q = new ArrayQueue(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(q::addLast, size);
+            while (q.size() > 0)
+                q.removeFirst();
+            return q;
+        });
+        registerRetention("ArrayQueue", "clear", size -> {
+            ArrayQueue q = new ArrayQueue(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(q::addLast, size);
+            q.clear();
+            return q;
+        });
+        registerRetention("ArrayDeque", "drain-first", size -> {
+            ArrayDeque d = new ArrayDeque(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(d::addLast, size);
+            while (d.size() > 0)
+                d.removeFirst();
+            return d;
+        });
+        registerRetention("ArrayDeque", "drain-last", size -> {
+            ArrayDeque d = new ArrayDeque(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(d::addLast, size);
+            while (d.size() > 0)
+                d.removeLast();
+            return d;
+        });
+        registerRetention("ArrayDeque", "clear", size -> {
+            ArrayDeque d = new ArrayDeque(1, GrowthPolicy.NO_SHRINK);
+            fillPayload(d::addLast, size);
+            d.clear();
+            return d;
+        });
+
+        // ---- DualArrayStack ----
+        register("DualArrayStack", "append", (size, rnd) -> {
+            DualArrayStack d = dualArrayStack(size);
+            return i -> {
+                d.addLast(i);
+                sink = d.removeLast();
+            };
+        });
+        register("DualArrayStack", "prepend", (size, rnd) -> {
+            DualArrayStack d = dualArrayStack(size);
+            return i -> {
+                d.addFirst(i);
+                sink = d.removeFirst();
+            };
+        });
+        register("DualArrayStack", "middle", (size, rnd) -> {
+            DualArrayStack d = dualArrayStack(size);
+            return i -> {
+                d.add(size / 2, i);
+                sink = d.remove(size / 2);
+            };
+        });
+        register("DualArrayStack", "get", (size, rnd) -> {
+            DualArrayStack d = dualArrayStack(size);
+            return i -> sink = d.get(rnd[i & RANDOM_MASK]);
+        });
+
+        // ---- RootishArrayStack ----
+        register("RootishArrayStack", "append", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                r.add(r.size(), i);
+                sink = r.remove(r.size() - 1);
+            };
+        });
+        register("RootishArrayStack", "prepend", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                r.add(0, i);
+                sink = r.remove(0);
+            };
+        });
+        register("RootishArrayStack", "middle", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                r.add(size / 2, i);
+                sink = r.remove(size / 2);
+            };
+        });
+        register("RootishArrayStack", "get", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> sink = r.get(rnd[i & RANDOM_MASK]);
+        });
+
+        register("RootishArrayStack", "index-rand", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                int index = rnd[i & RANDOM_MASK];
+                r.add(index, i);
+                sink = r.remove(index);
+            };
+        });
+
+        // Full passes over the list; ops/s is passes per second.
+        register("RootishArrayStack", "scan-get", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                long sum = 0;
+                for (int k = 0; k < r.size(); k++)
+                    sum += r.get(k);
+                primitiveSink = sum;
+            };
+        });
+        register("RootishArrayStack", "scan-iter", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                long sum = 0;
+                for (Integer v : r)
+                    sum += v;
+                primitiveSink = sum;
+            };
+        });
+        register("RootishArrayStack", "scan-each", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            long[] sum = new long[1];
+            return i -> {
+                sum[0] = 0;
+                r.forEach(v -> sum[0] += v);
+                primitiveSink = sum[0];
+            };
+        });
+        register("RootishArrayStack", "stream-sum", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> primitiveSink = r.stream().mapToLong(Integer::longValue).sum();
+        });
+        register("RootishArrayStack", "par-sum", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> primitiveSink = r.parallelStream().mapToLong(Integer::longValue).sum();
+        });
+
+        // ---- TieredRootishArrayStack (ring blocks, O(sqrt n) inserts) ----
+        register("TieredRootishArrayStack", "append", (size, rnd) -> {
+            TieredRootishArrayStack<Integer> r = tieredRootishArrayStack(size);
+            return i -> {
+                r.add(i);
+                sink = r.remove(r.size() - 1);
+            };
+        });
+        register("TieredRootishArrayStack", "prepend", (size, rnd) -> {
+            TieredRootishArrayStack<Integer> r = tieredRootishArrayStack(size);
+            return i -> {
+                r.add(0, i);
+                sink = r.remove(0);
+            };
+        });
+        register("TieredRootishArrayStack", "middle", (size, rnd) -> {
+            TieredRootishArrayStack<Integer> r = tieredRootishArrayStack(size);
+            return i -> {
+                r.add(size / 2, i);
+                sink = r.remove(size / 2);
+            };
+        });
+        register("TieredRootishArrayStack", "index-rand", (size, rnd) -> {
+            TieredRootishArrayStack<Integer> r = tieredRootishArrayStack(size);
+            return i -> {
+                int index = rnd[i & RANDOM_MASK];
+                r.add(index, i);
+                sink = r.remove(index);
+            };
+        });
+        register("TieredRootishArrayStack", "get", (size, rnd) -> {
+            TieredRootishArrayStack<Integer> r = tieredRootishArrayStack(size);
+            return i -> sink = r.get(rnd[i & RANDOM_MASK]);
+        });
+
+        // ---- IntRootishArrayStack (compare against RootishArrayStack and IntArrayStack) ----
+        register("IntRootishArrayStack", "build", (size, rnd) -> i -> sink = intRootishArrayStack(size));
+        register("IntRootishArrayStack", "append", (size, rnd) -> {
+            IntRootishArrayStack r = intRootishArrayStack(size);
+            return i -> {
+                r.add(i);
+                primitiveSink = r.remove(r.size() - 1);
+            };
+        });
+        register("IntRootishArrayStack", "prepend", (size, rnd) -> {
+            IntRootishArrayStack r = intRootishArrayStack(size);
+            return i -> {
+                r.add(0, i);
+                primitiveSink = r.remove(0);
+            };
+        });
+        register("IntRootishArrayStack", "middle", (size, rnd) -> {
+            IntRootishArrayStack r = intRootishArrayStack(size);
+            return i -> {
+                r.add(size / 2, i);
+                primitiveSink = r.remove(size / 2);
+            };
+        });
+        register("IntRootishArrayStack", "get", (size, rnd) -> {
+            IntRootishArrayStack r = intRootishArrayStack(size);
+            return i -> primitiveSink = r.get(rnd[i & RANDOM_MASK]);
+        });
+        // ---- OffHeapRootishArrayStack (direct blocks) ----
+        register("OffHeapRootishArrayStack", "append", (size, rnd) -> {
+            OffHeapRootishArrayStack r = offHeapRootishArrayStack(size);
+            return i -> {
+                r.add(i);
+                primitiveSink = r.remove(r.size() - 1);
+            };
+        });
+        register("OffHeapRootishArrayStack", "middle", (size, rnd) -> {
+            OffHeapRootishArrayStack r = offHeapRootishArrayStack(size);
+            return i -> {
+                r.add(size / 2, i);
+                primitiveSink = r.remove(size / 2);
+            };
+        });
+        register("OffHeapRootishArrayStack", "get", (size, rnd) -> {
+            OffHeapRootishArrayStack r = offHeapRootishArrayStack(size);
+            return i -> primitiveSink = r.get(rnd[i & RANDOM_MASK]);
+        });
+
+        // One full GC per op with the list live; ops/s is collections per second.
+        register("RootishArrayStack", "full-gc", (size, rnd) -> {
+            RootishArrayStack<Integer> r = rootishArrayStack(size);
+            return i -> {
+                System.gc();
+                sink = r;
+            };
+        });
+        register("IntRootishArrayStack", "full-gc", (size, rnd) -> {
+            IntRootishArrayStack r = intRootishArrayStack(size);
+            return i -> {
+                System.gc();
+                sink = r;
+            };
+        });
+        register("OffHeapRootishArrayStack", "full-gc", (size, rnd) -> {
+            OffHeapRootishArrayStack r = offHeapRootishArrayStack(size);
+            return i -> {
+                System.gc();
+                sink = r;
+            };
+        });
+
+        register("IntArrayStack", "prepend", (size, rnd) -> {
+            IntArrayStack s = intArrayStack(size);
+            return i -> {
+                s.add(0, i);
+                primitiveSink = s.remove(0);
+            };
+        });
+
+        // ---- SkipList ----
+        // Keys are boxed up front so B/op shows only what add/remove allocate.
+        register("SkipList", "append", (size, rnd) -> {
+            SkipList s = skipList(size);
+            Integer key = 2 * size;
+            return i -> {
+                s.add(key);
+                s.remove(key);
+            };
+        });
+        register("SkipList", "prepend", (size, rnd) -> {
+            SkipList s = skipList(size);
+            Integer key = -1;
+            return i -> {
+                s.add(key);
+                s.remove(key);
+            };
+        });
+        register("SkipList", "middle", (size, rnd) -> {
+            SkipList s = skipList(size);
+            Integer[] keys = new Integer[rnd.length];
+            for (int k = 0; k < keys.length; k++)
+                keys[k] = 2 * rnd[k] + 1;
+            return i -> {
+                s.add(keys[i & RANDOM_MASK]);
+                s.remove(keys[i & RANDOM_MASK]);
+            };
+        });
+        register("SkipList", "find", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> sink = s.find(2 * rnd[i & RANDOM_MASK]);
+        });
+        register("SkipList", "contains", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> {
+                Integer key = 2 * rnd[i & RANDOM_MASK] + (i & 1);
+                sink = key.equals(s.find(key));
+            };
+        });
+
+        register("SkipList", "rank-get", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> sink = s.get(rnd[i & RANDOM_MASK]);
+        });
+        register("SkipList", "rankOf", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> primitiveSink = s.rankOf(2 * rnd[i & RANDOM_MASK] + 1);
+        });
+        register("SkipList", "countRange", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> primitiveSink = s.countInRange(rnd[i & RANDOM_MASK], 2 * rnd[i & RANDOM_MASK]);
+        });
+
+        // ---- SkipList finger search: sequential, clustered and uniform key streams ----
+        for (boolean finger : new boolean[] { false, true }) {
+            String name = finger ? "SkipList(finger)" : "SkipList";
+            register(name, "find-seq", (size, rnd) -> fingerFind(size, finger, k -> 2 * (k % size)));
+            register(name, "find-clust", (size, rnd) -> {
+                int[] walk = new int[rnd.length]; // random walk with small steps
+                Random steps = new Random(11);
+                int key = size / 2;
+                for (int k = 0; k < walk.length; k++) {
+                    key = Math.floorMod(key + steps.nextInt(33) - 16, size);
+                    walk[k] = key;
+                }
+                return fingerFind(size, finger, k -> 2 * walk[k]);
+            });
+            register(name, "find-unif", (size, rnd) -> fingerFind(size, finger, k -> 2 * rnd[k]));
+        }
+
+        // ---- SkipList Bloom filter: mostly-miss membership probes ----
+        for (boolean bloom : new boolean[] { false, true }) {
+            String name = bloom ? "SkipList(bloom)" : "SkipList";
+            register(name, "contains-miss", (size, rnd) -> {
+                SkipList s = skipList(size);
+                if (bloom)
+                    s.enableBloomFilter(size, 0.01);
+                Integer[] keys = new Integer[rnd.length];
+                for (int k = 0; k < keys.length; k++)
+                    keys[k] = 2 * rnd[k] + 1; // odd keys are never present
+                return i -> sink = s.contains(keys[i & RANDOM_MASK]);
+            });
+            register(name, "contains-hit", (size, rnd) -> {
+                SkipList s = skipList(size);
+                if (bloom)
+                    s.enableBloomFilter(size, 0.01);
+                Integer[] keys = new Integer[rnd.length];
+                for (int k = 0; k < keys.length; k++)
+                    keys[k] = 2 * rnd[k];
+                return i -> sink = s.contains(keys[i & RANDOM_MASK]);
+            });
+        }
+
+        // ---- IntSkipList / LongSkipList (compare against boxed SkipList) ----
+        register("SkipList", "build", (size, rnd) -> i -> sink = skipList(size));
+        register("SkipList", "fromSorted", (size, rnd) -> i -> sink = SkipList.fromSorted(
+                java.util.stream.IntStream.range(0, size).map(k -> 2 * k)));
+        register("SkipList", "mergeSorted", (size, rnd) -> i -> {
+            SkipList s = SkipList.fromSorted(java.util.stream.IntStream.range(0, size).map(k -> 2 * k));
+            s.addAllSorted(java.util.stream.IntStream.range(0, size).map(k -> 2 * k + 1).iterator());
+            sink = s;
+        });
+        // Evict a 1000-key window and merge it back; the restore is the same in both cases.
+        register("SkipList", "evict-loop", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> {
+                int lo = 2 * (rnd[i & RANDOM_MASK] % Math.max(1, size - 1000));
+                for (int k = lo; k < lo + 2000; k += 2)
+                    s.remove(k);
+                s.addAllSorted(java.util.stream.IntStream.range(lo / 2, lo / 2 + 1000).map(k -> 2 * k).iterator());
+            };
+        });
+        register("SkipList", "evict-range", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> {
+                int lo = 2 * (rnd[i & RANDOM_MASK] % Math.max(1, size - 1000));
+                s.removeRange(lo, lo + 2000);
+                s.addAllSorted(java.util.stream.IntStream.range(lo / 2, lo / 2 + 1000).map(k -> 2 * k).iterator());
+            };
+        });
+        register("SkipList", "split-concat", (size, rnd) -> {
+            SkipList s = skipList(size);
+            return i -> {
+                SkipList tail = s.split(2 * rnd[i & RANDOM_MASK] + 1);
+                s.concat(tail);
+            };
+        });
+        register("IntSkipList", "build", (size, rnd) -> i -> sink = intSkipList(size));
+        register("LongSkipList", "build", (size, rnd) -> i -> sink = longSkipList(size));
+        register("IntSkipList", "middle", (size, rnd) -> {
+            IntSkipList s = intSkipList(size);
+            return i -> {
+                s.add(2 * rnd[i & RANDOM_MASK] + 1);
+                s.remove(2 * rnd[i & RANDOM_MASK] + 1);
+            };
+        });
+        register("IntSkipList", "find", (size, rnd) -> {
+            IntSkipList s = intSkipList(size);
+            return i -> primitiveSink = s.find(2 * rnd[i & RANDOM_MASK], -1);
+        });
+        register("LongSkipList", "find", (size, rnd) -> {
+            LongSkipList s = longSkipList(size);
+            return i -> primitiveSink = s.find(2L * rnd[i & RANDOM_MASK], -1);
+        });
+        register("IntSkipList", "contains", (size, rnd) -> {
+            IntSkipList s = intSkipList(size);
+            return i -> sink = s.contains(2 * rnd[i & RANDOM_MASK] + (i & 1));
+        });
+
+        // ---- SkipListMap (compare against TreeMap) ----
+        register("SkipListMap", "get", (size, rnd) -> {
+            SkipListMap<Integer, Integer> m = skipListMap(size);
+            return i -> sink = m.get(2 * rnd[i & RANDOM_MASK]);
+        });
+        register("TreeMap", "get", (size, rnd) -> {
+            java.util.TreeMap<Integer, Integer> m = treeMap(size);
+            return i -> sink = m.get(2 * rnd[i & RANDOM_MASK]);
+        });
+        register("SkipListMap", "ceiling", (size, rnd) -> {
+            SkipListMap<Integer, Integer> m = skipListMap(size);
+            return i -> sink = m.ceilingEntry(2 * rnd[i & RANDOM_MASK] + 1);
+        });
+        register("SkipListMap", "middle", (size, rnd) -> {
+            SkipListMap<Integer, Integer> m = skipListMap(size);
+            return i -> {
+                m.put(2 * rnd[i & RANDOM_MASK] + 1, i);
+                m.remove(2 * rnd[i & RANDOM_MASK] + 1);
+            };
+        });
+        register("SkipListMap", "range-sum", (size, rnd) -> {
+            SkipListMap<Integer, Integer> m = skipListMap(size);
+            return i -> primitiveSink = m.subMap(size / 2, size + size / 2).entrySet().stream()
+                    .mapToLong(java.util.Map.Entry::getValue).sum();
+        });
+        register("SkipListMap", "range-psum", (size, rnd) -> {
+            SkipListMap<Integer, Integer> m = skipListMap(size);
+            return i -> primitiveSink = m.subMap(size / 2, size + size / 2).entrySet().parallelStream()
+                    .mapToLong(java.util.Map.Entry::getValue).sum();
+        });
+
+        // ---- VersionedSkipList: O(1) snapshots while writers keep going ----
+        register("VersionedSkipList", "find", (size, rnd) -> {
+            VersionedSkipList s = versionedSkipList(size);
+            return i -> sink = s.find(2 * rnd[i & RANDOM_MASK]);
+        });
+        register("VersionedSkipList", "middle", (size, rnd) -> {
+            VersionedSkipList s = versionedSkipList(size);
+            Integer[] keys = new Integer[rnd.length];
+            for (int k = 0; k < keys.length; k++)
+                keys[k] = 2 * rnd[k] + 1;
+            return i -> {
+                s.add(keys[i & RANDOM_MASK]);
+                s.remove(keys[i & RANDOM_MASK]);
+            };
+        });
+        register("VersionedSkipList", "snapshot", (size, rnd) -> {
+            VersionedSkipList s = versionedSkipList(size);
+            return i -> {
+                try (VersionedSkipList.Snapshot snap = s.snapshot()) {
+                    sink = snap;
+                }
+            };
+        });
+        register("VersionedSkipList", "snap-find", (size, rnd) -> {
+            VersionedSkipList s = versionedSkipList(size);
+            VersionedSkipList.Snapshot snap = s.snapshot();
+            return i -> {
+                s.add(2 * rnd[i & RANDOM_MASK] + 1); // writers keep going under the open snapshot
+                s.remove(2 * rnd[i & RANDOM_MASK] + 1);
+                sink = snap.find(2 * rnd[(i + 1) & RANDOM_MASK]);
+            };
+        });
+
+        // ---- MappedIntSkipList: run with a small -Xmx to use files larger than the heap ----
+        register("MappedIntSkipList", "reopen", (size, rnd) -> {
+            java.nio.file.Path file = mappedFile(size);
+            return i -> closeMapped(openMapped(file));
+        });
+        register("MappedIntSkipList", "reopen+find", (size, rnd) -> {
+            java.nio.file.Path file = mappedFile(size);
+            return i -> {
+                MappedIntSkipList s = openMapped(file);
+                primitiveSink = s.find(2 * rnd[i & RANDOM_MASK], -1);
+                closeMapped(s);
+            };
+        });
+        register("MappedIntSkipList", "find", (size, rnd) -> {
+            MappedIntSkipList s = openMapped(mappedFile(size));
+            return i -> primitiveSink = s.find(2 * rnd[i & RANDOM_MASK], -1);
+        });
+        register("MappedIntSkipList", "middle", (size, rnd) -> {
+            MappedIntSkipList s = openMapped(mappedFile(size));
+            return i -> {
+                s.add(2 * rnd[i & RANDOM_MASK] + 1);
+                s.remove(2 * rnd[i & RANDOM_MASK] + 1);
+            };
+        });
+
+        // ---- SkipList_1 ----
+        register("SkipList_1", "append", (size, rnd) -> {
+            SkipList_1 s = skipList1(size);
+            return i -> s.add(2 * size + i);
+        });
+        register("SkipList_1", "find", (size, rnd) -> {
+            SkipList_1 s = skipList1(size);
+            return i -> sink = s.findPredNode(2 * rnd[i & RANDOM_MASK]);
+        });
+    }
+
+    // ==================== MEASUREMENT ====================
+
+    /** Returns the bytes allocated so far by the current thread, or -1. */
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        return -1;
+    }
+
+    /**
+     * Runs op until the time budget is spent and returns
+     * {operations, elapsed nanos, allocated bytes}.
+     */
+    static long[] runFor(Op op, long millis) {
+        long budget = millis * 1_000_000L;
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        int ops = 0;
+        int batch = 1;
+        do {
+            for (int k = 0; k < batch; k++)
+                op.run(ops++);
+            elapsed = System.nanoTime() - start;
+            if (batch < 1 << 16)
+                batch <<= 1;
+        } while (elapsed < budget);
+        long bytes = allocatedBytes() - bytesBefore;
+        return new long[] { ops, elapsed, bytes };
+    }
+
+    static void measure(Case c, int size, int[] random) {
+        Op op;
+        try {
+            op = c.factory.create(size, random);
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-20s %-10s %,12d  skipped (out of memory)%n", c.structure, c.op, size);
+            return;
+        }
+        runFor(op, WARMUP_MILLIS);
+        long[] r = runFor(op, measureMillis);
+        double opsPerSec = r[0] * 1e9 / r[1];
+        double bytesPerOp = r[2] < 0 ? Double.NaN : (double) r[2] / r[0];
+        double mbPerSec = r[2] < 0 ? Double.NaN : r[2] * 1e9 / r[1] / (1 << 20);
+        System.out.printf("%-20s %-10s %,12d %,16.1f %12.1f %12.1f%n",
+                c.structure, c.op, size, opsPerSec, bytesPerOp, mbPerSec);
+    }
+
+    static void measure(ThreadedCase c, int threads) {
+        try {
+            c.trial.run(threads, WARMUP_MILLIS);
+            long ops = c.trial.run(threads, measureMillis);
+            System.out.printf("%-20s %-10s %12s %,16.0f%n",
+                    c.structure, c.op, threads + " threads", ops * 1e3 / measureMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Returns the heap in use after a full collection. */
+    static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int k = 0; k < 3; k++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Reports the heap a drained structure keeps reachable and the shallow
+     * size of its backing array.
+     */
+    static void measure(RetentionCase c, int size) {
+        long before = usedHeapAfterGc();
+        Object drained;
+        try {
+            drained = c.drain.run(size);
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-20s %-10s %,12d  skipped (out of memory)%n", c.structure, c.op, size);
+            return;
+        }
+        long retained = usedHeapAfterGc() - before;
+        System.out.printf("%-20s %-10s %,12d %16.2f %12.2f%n",
+                c.structure, c.op, size, retained / 1048576.0, retainedBytesEstimate(drained) / 1048576.0);
+        java.lang.ref.Reference.reachabilityFence(drained);
+    }
+
+    static long retainedBytesEstimate(Object structure) {
+        if (structure instanceof ArrayStack)
+            return ((ArrayStack) structure).retainedBytesEstimate();
+        if (structure instanceof ArrayQueue)
+            return ((ArrayQueue) structure).retainedBytesEstimate();
+        if (structure instanceof ArrayDeque)
+            return ((ArrayDeque) structure).retainedBytesEstimate();
+        return -1;
+    }
+
+    static boolean selected(String value, String[] filter) {
+        return filter == null || Arrays.asList(filter).contains(value);
+    }
+
+    public static void main(String[] args) {
+        String[] structures = null, ops = null;
+        int[] sizes = DEFAULT_SIZES;
+        for (String arg : args) {
+            if (arg.startsWith("--structures="))
+                structures = arg.substring(13).split(",");
+            else if (arg.startsWith("--ops="))
+                ops = arg.substring(6).split(",");
+            else if (arg.startsWith("--sizes="))
+                sizes = Arrays.stream(arg.substring(8).split(",")).mapToInt(Integer::parseInt).toArray();
+            else if (arg.startsWith("--time="))
+                measureMillis = Integer.parseInt(arg.substring(7));
+            else {
+                System.out.println("Unknown argument: " + arg);
+                return;
+            }
+        }
+
+        System.out.printf("%-20s %-10s %12s %16s %12s %12s%n",
+                "structure", "op", "size", "ops/s", "B/op", "MB/s alloc");
+        for (int size : sizes) {
+            Random rng = new Random(42);
+            int[] random = new int[RANDOM_MASK + 1];
+            for (int i = 0; i < random.length; i++)
+                random[i] = rng.nextInt(size);
+            for (Case c : CASES)
+                if (selected(c.structure, structures) && selected(c.op, ops)) {
+                    measure(c, size, random);
+                    sink = null;
+                    System.gc();
+                }
+        }
+        for (ThreadedCase c : THREADED_CASES)
+            if (selected(c.structure, structures) && selected(c.op, ops))
+                for (int threads : c.threadCounts) {
+                    measure(c, threads);
+                    System.gc();
+                }
+
+        boolean header = false;
+        for (RetentionCase c : RETENTION_CASES)
+            if (selected(c.structure, structures) && selected(c.op, ops))
+                for (int size : sizes) {
+                    if (size > MAX_RETENTION_SIZE)
+                        continue;
+                    if (!header) {
+                        System.out.printf("%n%-20s %-10s %12s %16s %12s%n",
+                                "structure", "op", "size", "retained MB", "array MB");
+                        header = true;
+                    }
+                    measure(c, size);
+                }
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/**
+ * BloomFilter is a compact, probabilistic set of int keys: mightContain()
+ * never returns false for a key that was put, and returns true for a key
+ * that was not with roughly the configured false-positive probability.
+ *
+ * The bits live in a long[]; the k probe positions of a key come from one
+ * 64-bit mix of the key split into two 32-bit hashes (h1 + i * h2, the
+ * Kirsch-Mitzenmacher construction), so a probe costs no extra hashing.
+ * Keys cannot be removed: rebuild a fresh filter instead.
+ */
+public class BloomFilter {
+    private final long[] bits;
+    private final long bit_count; // number of bits, bits.length * 64
+    private final int hash_count; // probes per key
+    private final int capacity; // expected number of keys the sizing was made for
+    private final double false_positive_rate;
+
+    /**
+     * Constructs a filter sized for expected keys at the given false-positive
+     * probability: m = -n ln p / (ln 2)^2 bits and k = m/n ln 2 probes.
+     *
+     * @param expected Number of keys the filter should hold.
+     * @param false_positive_rate Target probability, 0 < p < 1.
+     */
+    public BloomFilter(int expected, double false_positive_rate) {
+        if (false_positive_rate <= 0 || false_positive_rate >= 1)
+            throw new IllegalArgumentException("False-positive rate must be in (0, 1): " + false_positive_rate);
+        this.capacity = Math.max(1, expected);
+        this.false_positive_rate = false_positive_rate;
+        long m = (long) Math.ceil(-capacity * Math.log(false_positive_rate) / (Math.log(2) * Math.log(2)));
+        bits = new long[(int) Math.max(1, (m + 63) >>> 6)];
+        bit_count = 64L * bits.length;
+        hash_count = Math.max(1, (int) Math.round((double) bit_count / capacity * Math.log(2)));
+    }
+
+    /** 64-bit finalizer of SplitMix64; spreads consecutive keys over all bits. */
+    private static long mix(int key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public void put(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hash_count; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bit_count;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Returns false if key was definitely never put, true if it may have been.
+     */
+    public boolean mightContain(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hash_count; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bit_count;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0);
+    }
+
+    /** Returns the number of keys the filter was sized for. */
+    public int capacity() {
+        return capacity;
+    }
+
+    public double falsePositiveRate() {
+        return false_positive_rate;
+    }
+
+    public long bitCount() {
+        return bit_count;
+    }
+
+    public int hashCount() {
+        return hash_count;
+    }
+}
@@ -0,0 +1,202 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * ConcurrentRootishLog is a lock-free, append-only list on the block layout
+ * of RootishArrayStack: block b holds b + 1 elements starting at global
+ * index b(b+1)/2, and a block never moves once it is installed, so growing
+ * never copies and never stalls a reader.
+ *
+ * append() reserves its index with a single getAndAdd on the reserved
+ * counter, installs the block with a CAS if it is the first to need it, and
+ * writes the element. Appenders may finish out of order, so an index is only
+ * published once every index below it is written: each appender, after its
+ * own write, advances the published size over the written prefix with CAS.
+ * A reader never waits: size() is the published size and get(i) is a bounds
+ * check plus three array loads.
+ *
+ * Block references sit in a fixed directory of CHUNK_SIZE chunks of
+ * CHUNK_SIZE blocks each, installed on demand, which covers every int index.
+ * Elements must not be null; a null slot means "not written yet".
+ */
+public class ConcurrentRootishLog<T> implements Iterable<T> {
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // block references per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final VarHandle RESERVED;
+    private static final VarHandle PUBLISHED;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle BLOCK = MethodHandles.arrayElementVarHandle(Object[][].class);
+    private static final VarHandle CHUNK = MethodHandles.arrayElementVarHandle(Object[][][].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            RESERVED = lookup.findVarHandle(ConcurrentRootishLog.class, "reserved", long.class);
+            PUBLISHED = lookup.findVarHandle(ConcurrentRootishLog.class, "published", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[][][] chunks = new Object[CHUNK_SIZE][][]; // block b is chunks[b >>> CHUNK_BITS][b & CHUNK_MASK]
+
+    private volatile long reserved; // indices handed out to appenders; may run past MAX_SIZE
+    private volatile int published; // every index below this is written and visible
+
+    /**
+     * Appends data at the end of the log.
+     *
+     * @param data The element to add (must not be null).
+     * @return The index data was stored at.
+     * @throws IllegalStateException if the log already holds the maximum number of elements.
+     */
+    public int append(T data) {
+        if (data == null)
+            throw new NullPointerException();
+        long slot = (long) RESERVED.getAndAdd(this, 1L);
+        if (slot >= MAX_SIZE)
+            throw new IllegalStateException("Log is full");
+        int i = (int) slot;
+        int b = IntRootishArrayStack.i2b(i);
+        // Volatile, not release: publish() relies on an appender either seeing
+        // a later write or having its own CAS seen by that later appender.
+        SLOT.setVolatile(installBlock(b), i - IntRootishArrayStack.firstIndex(b), data);
+        publish(i);
+        return i;
+    }
+
+    /**
+     * Returns block b, installing it (and its chunk) if no appender has yet.
+     */
+    private Object[] installBlock(int b) {
+        int c = b >>> CHUNK_BITS;
+        Object[][] chunk = (Object[][]) CHUNK.getAcquire(chunks, c);
+        if (chunk == null) {
+            Object[][] fresh = new Object[CHUNK_SIZE][];
+            chunk = (Object[][]) CHUNK.compareAndExchange(chunks, c, (Object[][]) null, fresh);
+            if (chunk == null)
+                chunk = fresh; // ours won
+        }
+        Object[] block = (Object[]) BLOCK.getAcquire(chunk, b & CHUNK_MASK);
+        if (block == null) {
+            Object[] fresh = new Object[b + 1];
+            block = (Object[]) BLOCK.compareAndExchange(chunk, b & CHUNK_MASK, (Object[]) null, fresh);
+            if (block == null)
+                block = fresh;
+        }
+        return block;
+    }
+
+    /** Returns the element at index i if it has been written, else null. */
+    private Object written(int i) {
+        int b = IntRootishArrayStack.i2b(i);
+        Object[][] chunk = (Object[][]) CHUNK.getAcquire(chunks, b >>> CHUNK_BITS);
+        if (chunk == null)
+            return null;
+        Object[] block = (Object[]) BLOCK.getAcquire(chunk, b & CHUNK_MASK);
+        if (block == null)
+            return null;
+        return SLOT.getVolatile(block, i - IntRootishArrayStack.firstIndex(b));
+    }
+
+    /**
+     * Advances published over the written prefix, after index i was written.
+     * Stops at the first index still being written; the appender writing it
+     * publishes it when done.
+     */
+    private void publish(int i) {
+        int p = published;
+        if (p == i && PUBLISHED.compareAndSet(this, i, i + 1))
+            p = i + 1; // uncontended case: ours was next, no need to look it up
+        while (p < reserved && p < MAX_SIZE && written(p) != null) {
+            if (PUBLISHED.compareAndSet(this, p, p + 1))
+                p++;
+            else
+                p = published;
+        }
+    }
+
+    /**
+     * Returns the element at index i. Wait-free.
+     *
+     * @throws IndexOutOfBoundsException if i is not below size().
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        if (i < 0 || i >= published)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + i);
+        // Plain loads suffice: reading published above happens after the
+        // writes of the block, its chunk and the element at every index below it.
+        int b = IntRootishArrayStack.i2b(i);
+        return (T) chunks[b >>> CHUNK_BITS][b & CHUNK_MASK][i - IntRootishArrayStack.firstIndex(b)];
+    }
+
+    /** Returns the number of published elements. */
+    public int size() {
+        return published;
+    }
+
+    public boolean isEmpty() {
+        return published == 0;
+    }
+
+    /**
+     * Performs action on the elements published when the call starts, in
+     * order, one block at a time.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        int left = published;
+        for (int b = 0; left > 0; b++) {
+            Object[] block = chunks[b >>> CHUNK_BITS][b & CHUNK_MASK];
+            int len = Math.min(left, block.length);
+            for (int j = 0; j < len; j++)
+                action.accept((T) block[j]);
+            left -= len;
+        }
+    }
+
+    /**
+     * Iterates the elements published when the iterator is created. Appends
+     * made meanwhile are not seen and never invalidate it.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            final int fence = published;
+            int index; // next index to return
+            int b; // block of index
+            int j; // offset of index within block b
+
+            @Override
+            public boolean hasNext() {
+                return index < fence;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (index >= fence)
+                    throw new NoSuchElementException();
+                T val = (T) chunks[b >>> CHUNK_BITS][b & CHUNK_MASK][j];
+                index++;
+                if (++j > b) { // past the last slot of block b
+                    b++;
+                    j = 0;
+                }
+                return val;
+            }
+        };
+    }
+}
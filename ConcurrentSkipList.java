@@ -0,0 +1,258 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConcurrentSkipList is a lock-free version of SkipList using Harris/Fraser
+ * style marked-pointer deletion.
+ * Java cannot steal a bit from a reference, so a link is "marked" by CASing a
+ * marker node into it: a marker wraps the real successor, and any CAS that
+ * expects the plain successor fails against it. remove() marks a node's links
+ * from the top level down, the thread that marks level 0 owns the removal,
+ * and any traversal that meets a marked link physically unlinks it with a CAS.
+ * add() links a new node bottom-up, so it becomes visible the moment its
+ * level-0 CAS succeeds.
+ *
+ * find() and range() never write and never retry: they step over marked
+ * nodes, so they are wait-free and weakly consistent under concurrent writes.
+ */
+public class ConcurrentSkipList {
+    final static int MAX_HEIGHT = 16;
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    final Node sentinel;
+    private final LongAdder n;
+    private final AtomicInteger height; // highest level any node was ever linked at; searches start here
+
+    public ConcurrentSkipList() {
+        sentinel = new Node(Integer.MIN_VALUE, MAX_HEIGHT);
+        n = new LongAdder();
+        height = new AtomicInteger();
+    }
+
+    /** Reads node's level-r link; the result may be a marker. */
+    private static Node load(Node node, int r) {
+        return (Node) NEXT.getAcquire(node.next, r);
+    }
+
+    private static boolean cas(Node node, int r, Node expect, Node update) {
+        return NEXT.compareAndSet(node.next, r, expect, update);
+    }
+
+    /** Reads node's level-r successor, looking through a marker. */
+    private static Node successor(Node node, int r) {
+        Node succ = load(node, r);
+        return succ != null && succ.isMarker() ? succ.next[0] : succ;
+    }
+
+    /**
+     * Fills preds/succs with the predecessor and successor of data at every
+     * level, unlinking marked nodes on the way.
+     *
+     * @return True if a node with data is present.
+     */
+    private boolean findPredNodes(Integer data, Node[] preds, Node[] succs) {
+        retry: while (true) {
+            Node pred = sentinel;
+            Node curr = null;
+            for (int r = height.get(); r >= 0; r--) {
+                curr = load(pred, r);
+                if (curr != null && curr.isMarker())
+                    continue retry; // pred itself was removed meanwhile
+                while (curr != null) {
+                    Node succ = load(curr, r);
+                    while (succ != null && succ.isMarker()) { // curr is being removed: help unlink it
+                        if (!cas(pred, r, curr, succ.next[0]))
+                            continue retry;
+                        curr = succ.next[0];
+                        succ = curr == null ? null : load(curr, r);
+                    }
+                    if (curr == null || Integer.compare(data, curr.data) <= 0)
+                        break;
+                    pred = curr;
+                    curr = succ;
+                }
+                preds[r] = pred;
+                succs[r] = curr;
+            }
+            return curr != null && curr.data.equals(data);
+        }
+    }
+
+    /**
+     * Returns the first node whose value is >= data and is not being removed,
+     * without modifying the list.
+     */
+    private Node findNode(Integer data) {
+        Node pred = sentinel;
+        Node curr = null;
+        for (int r = height.get(); r >= 0; r--) {
+            curr = successor(pred, r);
+            while (curr != null) {
+                Node succ = load(curr, r);
+                if (succ != null && succ.isMarker()) { // step over a node being removed
+                    curr = succ.next[0];
+                    continue;
+                }
+                if (Integer.compare(data, curr.data) <= 0)
+                    break;
+                pred = curr;
+                curr = succ;
+            }
+        }
+        return curr;
+    }
+
+    /**
+     * Returns the smallest value >= data, or null if there is none.
+     */
+    public Integer find(Integer data) {
+        Node node = findNode(data);
+        return node == null ? null : node.data;
+    }
+
+    /** True if data is present. */
+    public boolean contains(Integer data) {
+        Node node = findNode(data);
+        return node != null && node.data.equals(data);
+    }
+
+    public boolean add(Integer data) {
+        int level = flip_a_coin();
+        Node[] preds = new Node[MAX_HEIGHT + 1];
+        Node[] succs = new Node[MAX_HEIGHT + 1];
+        int top = height.get();
+        while (top < level && !height.compareAndSet(top, level)) // publish the level before linking at it
+            top = height.get();
+        while (true) {
+            if (findPredNodes(data, preds, succs))
+                return false; // Already exists
+            Node new_node = new Node(data, level);
+            for (int r = 0; r <= level; r++)
+                new_node.next[r] = succs[r];
+            if (!cas(preds[0], 0, succs[0], new_node))
+                continue; // level 0 changed under us: search again
+            n.increment();
+
+            for (int r = 1; r <= level; r++) {
+                while (true) {
+                    Node succ = load(new_node, r);
+                    if (succ != null && succ.isMarker())
+                        return true; // already being removed, stop linking
+                    if (succ != succs[r] && !cas(new_node, r, succ, succs[r]))
+                        continue;
+                    if (cas(preds[r], r, succs[r], new_node))
+                        break;
+                    findPredNodes(data, preds, succs);
+                    if (succs[0] != new_node)
+                        return true; // removed concurrently
+                }
+            }
+            return true;
+        }
+    }
+
+    public boolean remove(Integer data) {
+        Node[] preds = new Node[MAX_HEIGHT + 1];
+        Node[] succs = new Node[MAX_HEIGHT + 1];
+        if (!findPredNodes(data, preds, succs))
+            return false;
+        Node victim = succs[0];
+        for (int r = victim.getHeight(); r >= 1; r--) {
+            Node succ = load(victim, r);
+            while (succ == null || !succ.isMarker()) {
+                if (cas(victim, r, succ, new Node(succ)))
+                    break;
+                succ = load(victim, r);
+            }
+        }
+        while (true) {
+            Node succ = load(victim, 0);
+            if (succ != null && succ.isMarker())
+                return false; // another thread removed it first
+            if (cas(victim, 0, succ, new Node(succ))) {
+                n.decrement();
+                findPredNodes(data, preds, succs); // unlink it at every level
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Iterates the values v with from <= v < to in ascending order.
+     * The iterator is weakly consistent: it never throws
+     * ConcurrentModificationException, reflects every value present for the
+     * whole iteration, and may or may not reflect concurrent adds/removes.
+     */
+    public Iterator<Integer> range(Integer from, Integer to) {
+        return new Iterator<Integer>() {
+            Node next = skipRemoved(findNode(from));
+
+            Node skipRemoved(Node node) {
+                Node succ;
+                while (node != null && (succ = load(node, 0)) != null && succ.isMarker())
+                    node = succ.next[0];
+                return node != null && Integer.compare(node.data, to) < 0 ? node : null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                Integer val = next.data;
+                next = skipRemoved(successor(next, 0));
+                return val;
+            }
+        };
+    }
+
+    /** Returns the number of values; exact only when no writes are in flight. */
+    public int size() {
+        return (int) n.sum();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public static class Node {
+        final Node next[]; // accessed through NEXT once the node is published
+
+        final Integer data; // null only for markers
+
+        Node(Integer data, int height) {
+            next = new Node[1 + height]; // 1 is for the level-0
+            this.data = data;
+        }
+
+        /** Creates a marker wrapping succ, the successor at the marked level. */
+        Node(Node succ) {
+            next = new Node[] { succ };
+            data = null;
+        }
+
+        boolean isMarker() {
+            return data == null;
+        }
+
+        public int getHeight() {
+            return next.length - 1;
+        }
+    }
+
+    /** Geometric(1/2) level in [0, MAX_HEIGHT], from the thread-local generator. */
+    public static int flip_a_coin() {
+        int coin = ThreadLocalRandom.current().nextInt();
+        return Math.min(Integer.numberOfTrailingZeros(~coin), MAX_HEIGHT);
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ForkJoinScheduler is a small fork/join scheduler for divide-and-conquer
+ * jobs, built on WorkStealingDeque.
+ * Each worker thread owns one deque: tasks forked by a worker are pushed onto
+ * the back of its own deque and popped from there (LIFO, cache-warm), while
+ * idle workers steal from the front of a random victim (FIFO, large subtasks).
+ * A worker waiting in join() keeps executing other tasks instead of blocking.
+ *
+ * Tasks submitted from outside the pool go through a shared injection queue.
+ */
+public class ForkJoinScheduler {
+
+    /**
+     * A unit of work that may fork subtasks and join them.
+     *
+     * @param <V> Result type of the task.
+     */
+    public abstract static class Task<V> {
+        private volatile boolean done;
+        private V result;
+        private Throwable failure;
+        private volatile Thread waiter; // external thread blocked in invoke()
+
+        /** Performs the task's work and returns its result. */
+        protected abstract V compute();
+
+        /**
+         * Schedules this task for asynchronous execution. When called from a
+         * worker the task goes on that worker's own deque.
+         *
+         * @return This task, for chaining.
+         */
+        public final Task<V> fork() {
+            Thread current = Thread.currentThread();
+            if (current instanceof Worker)
+                ((Worker) current).deque.addLast(this);
+            else
+                throw new IllegalStateException("fork() must be called from a scheduler task");
+            return this;
+        }
+
+        /**
+         * Waits for this task to complete and returns its result. A worker
+         * thread runs other pending tasks while it waits; any other thread
+         * parks until the task is done.
+         *
+         * @return The result of compute().
+         */
+        public final V join() {
+            Thread current = Thread.currentThread();
+            if (!done && current instanceof Worker)
+                ((Worker) current).helpUntilDone(this);
+            // waiter belongs to invoke(), so an outside joiner re-checks on a
+            // short timed park, as an idle worker does.
+            while (!done)
+                LockSupport.parkNanos(this, 50_000L);
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            if (failure != null)
+                throw new RuntimeException(failure);
+            return result;
+        }
+
+        /** Runs the task once and marks it complete. */
+        final void run() {
+            try {
+                result = compute();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            done = true; // volatile write publishes result/failure
+            Thread w = waiter;
+            if (w != null)
+                LockSupport.unpark(w);
+        }
+
+        public final boolean isDone() {
+            return done;
+        }
+    }
+
+    /** A worker thread owning one work-stealing deque. */
+    final class Worker extends Thread {
+        final WorkStealingDeque deque = new WorkStealingDeque();
+        final int index;
+
+        Worker(int index) {
+            super("fork-join-worker-" + index);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        /** Finds a task: own deque first, then the injection queue, then steal. */
+        Task<?> findTask() {
+            Object task = deque.removeLast();
+            if (task == null)
+                task = injected.poll();
+            if (task == null && workers.length > 1) {
+                int start = ThreadLocalRandom.current().nextInt(workers.length);
+                for (int k = 0; k < workers.length && task == null; k++) {
+                    Worker victim = workers[(start + k) % workers.length];
+                    if (victim != this)
+                        task = victim.deque.removeFirst();
+                }
+            }
+            return (Task<?>) task;
+        }
+
+        /** Executes other tasks until target has completed. */
+        void helpUntilDone(Task<?> target) {
+            int idle = 0;
+            while (!target.isDone()) {
+                Task<?> task = findTask();
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (idle++ < 64) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (!shutdown) {
+                Task<?> task = findTask();
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (idle++ < 64) {
+                    Thread.onSpinWait();
+                } else if (idle < 128) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(50_000L);
+                }
+            }
+        }
+    }
+
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<Task<?>> injected = new ConcurrentLinkedQueue<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a scheduler and starts its worker threads.
+     *
+     * @param parallelism Number of worker threads.
+     */
+    public ForkJoinScheduler(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++)
+            workers[i] = new Worker(i);
+        for (Worker w : workers)
+            w.start();
+    }
+
+    /**
+     * Runs task on the pool and waits for its result. From a worker thread this
+     * is the same as task.fork().join().
+     *
+     * @param task The root task.
+     * @return The task's result.
+     */
+    public <V> V invoke(Task<V> task) {
+        if (Thread.currentThread() instanceof Worker)
+            return task.fork().join();
+        task.waiter = Thread.currentThread();
+        injected.add(task);
+        while (!task.isDone())
+            LockSupport.park(this);
+        return task.join();
+    }
+
+    /** Returns the number of worker threads. */
+    public int parallelism() {
+        return workers.length;
+    }
+
+    /** Stops the worker threads once they run out of work. */
+    public void shutdown() {
+        shutdown = true;
+    }
+}
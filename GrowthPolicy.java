@@ -0,0 +1,89 @@
+/**
+ * GrowthPolicy decides how the array-backed ADTs (ArrayStack, ArrayQueue,
+ * ArrayDeque) resize their backing array.
+ * Growing multiplies the capacity by a growth factor. Shrinking happens only
+ * once the array is at most 1/shrink_divisor full and lands the array
+ * back at n * growth_factor, so for shrink_divisor > growth_factor
+ * there is a gap between the two thresholds: pushing and popping around one
+ * size never resizes back and forth.
+ *
+ * The ring buffers (ArrayQueue, ArrayDeque) index with a bit mask, so they
+ * round every capacity the policy asks for up to a power of two.
+ *
+ * Policies are immutable and can be shared between instances.
+ */
+public final class GrowthPolicy {
+
+    /** Doubles when full, halves once three quarters are empty. */
+    public static final GrowthPolicy DEFAULT = new GrowthPolicy(2.0, 4);
+
+    /** Doubles when full, never shrinks (like java.util.ArrayList). */
+    public static final GrowthPolicy NO_SHRINK = new GrowthPolicy(2.0, 0);
+
+    private final double growth_factor;
+    private final int shrink_divisor; // shrink when n <= capacity / shrink_divisor; 0 = never
+
+    /**
+     * Constructs a policy.
+     *
+     * @param growth_factor  Capacity multiplier when growing, > 1.
+     * @param shrink_divisor Shrink when n <= capacity / shrink_divisor; must
+     *                       exceed growth_factor, or be 0 to never shrink.
+     */
+    public GrowthPolicy(double growth_factor, int shrink_divisor) {
+        if (!(growth_factor > 1))
+            throw new IllegalArgumentException("Growth factor must be > 1: " + growth_factor);
+        if (shrink_divisor != 0 && shrink_divisor <= growth_factor)
+            throw new IllegalArgumentException("Shrink divisor must exceed the growth factor: " + shrink_divisor);
+        this.growth_factor = growth_factor;
+        this.shrink_divisor = shrink_divisor;
+    }
+
+    /**
+     * Returns the capacity to grow to from capacity so that it holds at least
+     * required elements.
+     */
+    public int grow(int capacity, int required) {
+        long grown = (long) Math.ceil(Math.max(1, capacity) * growth_factor);
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(grown, required));
+    }
+
+    /**
+     * Returns the capacity to shrink to, or capacity itself if n elements do
+     * not warrant shrinking. Never goes below min_capacity.
+     */
+    public int shrink(int capacity, int n, int min_capacity) {
+        if (shrink_divisor == 0 || n > capacity / shrink_divisor)
+            return capacity;
+        int target = Math.max(min_capacity, (int) Math.ceil(Math.max(1, n) * growth_factor));
+        return Math.min(capacity, target);
+    }
+
+    /**
+     * Returns the smallest power of two >= capacity (at least 1).
+     */
+    static int ceilPowerOfTwo(int capacity) {
+        if (capacity <= 1)
+            return 1;
+        if (capacity > 1 << 30)
+            throw new OutOfMemoryError("Capacity too large for a power-of-two ring: " + capacity);
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Estimates the heap size of an Object[] of the given length: a 16-byte
+     * header plus 4 bytes per slot (compressed references), padded to 8.
+     */
+    static long referenceArrayBytes(int length) {
+        return (16L + 4L * length + 7) & ~7L;
+    }
+
+    public double growthFactor() {
+        return growth_factor;
+    }
+
+    /** Returns the shrink divisor, 0 if the policy never shrinks. */
+    public int shrinkDivisor() {
+        return shrink_divisor;
+    }
+}
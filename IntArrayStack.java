@@ -0,0 +1,183 @@
+/**
+ * IntArrayStack - A dynamic stack of primitive ints backed by an int[].
+ * Mirrors the ArrayStack API (add, remove, get, set, contains, subList,
+ * reverse) without boxing each element into an Integer.
+ */
+public class IntArrayStack {
+    private int[] list; // Underlying array for stack elements
+    private int n; // Current number of elements in the stack
+
+    /**
+     * Default constructor initializes stack with capacity 1.
+     */
+    public IntArrayStack() {
+        list = new int[1];
+        n = 0;
+    }
+
+    /**
+     * Doubles the current array size when capacity is exceeded or shrinks it when
+     * necessary.
+     * Ensures capacity never falls below 1.
+     */
+    private void resize() {
+        int newSize = Math.max(1, n * 2); // Avoids creating a zero-length array
+        int[] new_array = new int[newSize];
+        System.arraycopy(list, 0, new_array, 0, n);
+        list = new_array;
+    }
+
+    /**
+     * Adds an element at the specified index.
+     * Shifts existing elements to the right if needed.
+     *
+     * @param index Position to insert element
+     * @param data  Element to add
+     */
+    public void add(int index, int data) {
+        if (index < 0 || index > n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+
+        if (n + 1 > list.length)
+            resize();
+
+        System.arraycopy(list, index, list, index + 1, n - index);
+        list[index] = data;
+        n++;
+    }
+
+    /**
+     * Adds an element to the top of the stack (end of the array).
+     *
+     * @param data Element to push
+     */
+    public void add(int data) {
+        if (n + 1 > list.length)
+            resize();
+        list[n++] = data;
+    }
+
+    /**
+     * Removes an element at a specified index and shifts remaining elements left.
+     *
+     * @param index Position to remove
+     * @return Removed element
+     */
+    public int remove(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+
+        int removed = list[index];
+        System.arraycopy(list, index + 1, list, index, n - index - 1);
+        n--;
+
+        if (n <= list.length / 3)
+            resize();
+
+        return removed;
+    }
+
+    /**
+     * Replaces an element at a specific index and returns the old one.
+     *
+     * @param index Position to replace
+     * @param data  New data
+     * @return Old element at that position
+     */
+    public int set(int index, int data) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+
+        int old = list[index];
+        list[index] = data;
+        return old;
+    }
+
+    /**
+     * Retrieves an element at the specified index without removing it.
+     *
+     * @param index Position to access
+     * @return Element at that position
+     */
+    public int get(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        return list[index];
+    }
+
+    /**
+     * Checks if the stack contains a specific element.
+     *
+     * @param data Element to find
+     * @return True if found, false otherwise
+     */
+    public boolean contains(int data) {
+        for (int i = 0; i < n; i++)
+            if (list[i] == data)
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns the current number of elements in the stack.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Clears all elements from the stack.
+     */
+    public void clear() {
+        n = 0;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return True if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Prints the stack horizontally for visualization.
+     * Bottom element is on the left, top on the right.
+     */
+    public void printStack() {
+        System.out.print("Stack (bottom → top): ");
+        for (int i = 0; i < n; i++) {
+            System.out.print("[" + list[i] + "]");
+            if (i < n - 1)
+                System.out.print(" ");
+        }
+        System.out.println("  <-- horizontal view");
+        System.out.println("Size: " + n);
+    }
+
+    public void addAll(int toAdd[]) {
+        for (int value : toAdd) {
+            add(value);
+        }
+    }
+
+    public void reverse() {
+        int left = 0, right = n - 1;
+        while (left < right) {
+            int temp = list[right];
+            list[right] = list[left];
+            list[left] = temp;
+            left++;
+            right--;
+        }
+    }
+
+    public int[] subList(int from, int to) {
+        if (from < 0 || to > n || from > to)
+            throw new IndexOutOfBoundsException("Range out of bounds: " + from + ".." + to);
+        int[] to_return = new int[to - from];
+        System.arraycopy(list, from, to_return, 0, to - from);
+        return to_return;
+    }
+}
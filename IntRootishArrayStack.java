@@ -0,0 +1,233 @@
+/**
+ * IntRootishArrayStack - A RootishArrayStack of primitive ints.
+ * Elements live in int[] blocks of sizes 1, 2, 3, ..., so block b starts at
+ * global index b(b+1)/2 and at most O(√n) slots are wasted; blocks are never
+ * copied when the list grows.
+ *
+ * Unlike RootishArrayStack, the block of an index is found with exact integer
+ * arithmetic, the blocks sit in a plain array, and add/remove shift whole
+ * block runs with System.arraycopy, carrying one element across each block
+ * boundary.
+ */
+public class IntRootishArrayStack {
+    private int[][] blocks; // blocks[b] has length b + 1; only the first r are allocated
+    private int r; // number of blocks in use
+    private int n; // total number of elements
+
+    /** Constructs an empty IntRootishArrayStack with one block of size 1. */
+    public IntRootishArrayStack() {
+        blocks = new int[4][];
+        blocks[0] = new int[1];
+        r = 1;
+        n = 0;
+    }
+
+    /** Index of the first slot of block b. */
+    static int firstIndex(int b) {
+        return (int) ((long) b * (b + 1) / 2);
+    }
+
+    /** Total slots held by the first r blocks. */
+    private static long capacityOf(int r) {
+        return (long) r * (r + 1) / 2;
+    }
+
+    /**
+     * Maps a global index i to its block: the largest b with b(b+1)/2 <= i,
+     * that is floor((floor(sqrt(8i + 1)) - 1) / 2).
+     *
+     * 8i + 1 < 2^34 is exact as a double and Math.sqrt is correctly rounded;
+     * when 8i + 1 is not a perfect square its root stays more than 2^-18
+     * below the next integer, far above the rounding error, so the cast
+     * floors to the exact integer square root with no correction step.
+     */
+    static int i2b(int i) {
+        return ((int) Math.sqrt(8.0 * i + 1) - 1) >>> 1;
+    }
+
+    /**
+     * Inserts data at index, shifting later elements right.
+     *
+     * @param index Position to insert element
+     * @param data  Element to add
+     */
+    public void add(int index, int data) {
+        if (index < 0 || index > n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        if (capacityOf(r) < (long) n + 1)
+            grow();
+
+        // Walk back from the block that receives slot n: move each block's
+        // run right by one and pull the previous block's last element in.
+        int b = i2b(n);
+        int j = n - firstIndex(b); // slot to fill in block b
+        int ib = i2b(index);
+        int ij = index - firstIndex(ib);
+        while (b > ib) {
+            System.arraycopy(blocks[b], 0, blocks[b], 1, j);
+            blocks[b][0] = blocks[b - 1][b - 1];
+            b--;
+            j = b; // last slot of the previous block
+        }
+        System.arraycopy(blocks[b], ij, blocks[b], ij + 1, j - ij);
+        blocks[ib][ij] = data;
+        n++;
+    }
+
+    /**
+     * Appends data at the end of the list.
+     *
+     * @param data Element to push
+     */
+    public void add(int data) {
+        if (capacityOf(r) < (long) n + 1)
+            grow();
+        int b = i2b(n);
+        blocks[b][n - firstIndex(b)] = data;
+        n++;
+    }
+
+    /**
+     * Removes the element at index, shifting later elements left.
+     *
+     * @param index Position to remove
+     * @return Removed element
+     */
+    public int remove(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+
+        int b = i2b(index);
+        int j = index - firstIndex(b);
+        int removed = blocks[b][j];
+        int lb = i2b(n - 1);
+        int lj = n - 1 - firstIndex(lb); // last occupied slot
+        while (b < lb) {
+            System.arraycopy(blocks[b], j + 1, blocks[b], j, b - j);
+            blocks[b][b] = blocks[b + 1][0];
+            b++;
+            j = 0;
+        }
+        System.arraycopy(blocks[b], j + 1, blocks[b], j, lj - j);
+        n--;
+
+        if (capacityOf(r - 2) >= n)
+            shrink();
+        return removed;
+    }
+
+    /**
+     * Replaces the element at index and returns the old one.
+     *
+     * @param index Position to replace
+     * @param data  New data
+     * @return Old element at that position
+     */
+    public int set(int index, int data) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        int b = i2b(index);
+        int[] block = blocks[b];
+        int j = index - firstIndex(b);
+        int old = block[j];
+        block[j] = data;
+        return old;
+    }
+
+    /**
+     * Returns the element at index.
+     *
+     * @param index Position to access
+     * @return Element at that position
+     */
+    public int get(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        int b = i2b(index);
+        return blocks[b][index - firstIndex(b)];
+    }
+
+    /**
+     * Checks if the list contains data, scanning block by block.
+     *
+     * @param data Element to find
+     * @return True if found, false otherwise
+     */
+    public boolean contains(int data) {
+        int left = n;
+        for (int b = 0; left > 0; b++) {
+            int[] block = blocks[b];
+            int len = Math.min(left, block.length);
+            for (int j = 0; j < len; j++)
+                if (block[j] == data)
+                    return true;
+            left -= len;
+        }
+        return false;
+    }
+
+    /** Adds a new block of size r + 1. */
+    private void grow() {
+        if (r == blocks.length) {
+            int[][] new_blocks = new int[2 * r][];
+            System.arraycopy(blocks, 0, new_blocks, 0, r);
+            blocks = new_blocks;
+        }
+        blocks[r] = new int[r + 1];
+        r++;
+    }
+
+    /** Releases trailing blocks while at least two of them are unused. */
+    private void shrink() {
+        while (r > 1 && capacityOf(r - 2) >= n)
+            blocks[--r] = null;
+    }
+
+    /** Returns number of stored elements. */
+    public int size() {
+        return n;
+    }
+
+    /** Returns the number of slots in the allocated blocks. */
+    public long capacity() {
+        return capacityOf(r);
+    }
+
+    /** Clears all data and drops every block but the first. */
+    public void clear() {
+        blocks = new int[4][];
+        blocks[0] = new int[1];
+        r = 1;
+        n = 0;
+    }
+
+    /** True if the list is empty. */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /** Prints both linear view and block view of the list. */
+    public void print() {
+        System.out.println("\n--- IntRootishArrayStack State ---");
+        System.out.println("n = " + n + ", blocks = " + r);
+        System.out.print("Linear view: [");
+        for (int i = 0; i < n; i++) {
+            System.out.print(get(i));
+            if (i < n - 1)
+                System.out.print(", ");
+        }
+        System.out.println("]");
+
+        System.out.println("Block structure:");
+        for (int b = 0; b < r; b++) {
+            System.out.print("  Block " + b + ": [");
+            for (int j = 0; j <= b; j++) {
+                System.out.print(firstIndex(b) + j < n ? String.valueOf(blocks[b][j]) : "_");
+                if (j < b)
+                    System.out.print(", ");
+            }
+            System.out.println("]");
+        }
+        System.out.println("----------------------------------\n");
+    }
+}
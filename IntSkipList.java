@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * IntSkipList is a SkipList of primitive int keys with no per-node objects.
+ * Every node is a tower of ints laid out back to back in one growable int[]
+ * slab: [key, height, next_0, next_1, ..., next_height]. A node is identified
+ * by its offset in the slab and links hold offsets, so a level step is one
+ * array load and the key compared next sits on the same cache line as the
+ * node's links. Removed towers are recycled through per-height free lists.
+ *
+ * The sentinel is the tower at offset 0; since no link ever points back at
+ * it, offset 0 doubles as the null link.
+ */
+public class IntSkipList {
+    final static int MAX_HEIGHT = 24; // enough levels for tens of millions of keys
+
+    private static final int KEY = 0; // slot offsets within a tower
+    private static final int HEIGHT = 1;
+    private static final int NEXT = 2;
+
+    private static final int NIL = 0; // "no successor"; also the sentinel's offset
+
+    private int[] slab; // all towers, back to back
+    private int top; // first unused slab offset
+    private final int[] free_towers; // free_towers[h] = first recycled tower of height h, chained via next_0
+
+    private final int[] travelled_path; // reused by add/remove
+    int height; // number of non-empty levels
+    int n;
+
+    private int seed; // xorshift32 state for flip_a_coin, never zero
+
+    public IntSkipList() {
+        slab = new int[64];
+        slab[KEY] = Integer.MIN_VALUE;
+        slab[HEIGHT] = MAX_HEIGHT;
+        top = NEXT + MAX_HEIGHT + 1;
+        free_towers = new int[MAX_HEIGHT + 1];
+        travelled_path = new int[MAX_HEIGHT + 1];
+        height = 0;
+        n = 0;
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    /** Returns the offset of a free tower with levels 0..h, growing the slab if needed. */
+    private int allocate(int h) {
+        int node = free_towers[h];
+        if (node != NIL) {
+            free_towers[h] = slab[node + NEXT];
+            return node;
+        }
+        int size = NEXT + h + 1;
+        if (top + size > slab.length)
+            slab = Arrays.copyOf(slab, Math.max(slab.length * 2, top + size));
+        node = top;
+        top += size;
+        return node;
+    }
+
+    /** Returns the offset of the last node whose key is < data (possibly the sentinel). */
+    public int findPredNode(int data) {
+        int[] s = slab;
+        int agent = 0;
+        for (int r = height - 1; r >= 0; r--) {
+            int next;
+            while ((next = s[agent + NEXT + r]) != NIL && s[next + KEY] < data)
+                agent = next;
+        }
+        return agent;
+    }
+
+    /**
+     * Returns the smallest key >= data, or absent if there is none.
+     */
+    public int find(int data, int absent) {
+        int next = slab[findPredNode(data) + NEXT];
+        return next == NIL ? absent : slab[next + KEY];
+    }
+
+    /** True if data is present. */
+    public boolean contains(int data) {
+        int next = slab[findPredNode(data) + NEXT];
+        return next != NIL && slab[next + KEY] == data;
+    }
+
+    /** Fills travelled_path with the level-r predecessors of data; returns the level-0 one. */
+    private int findPath(int data) {
+        int[] s = slab;
+        int agent = 0;
+        for (int r = height - 1; r >= 0; r--) {
+            int next;
+            while ((next = s[agent + NEXT + r]) != NIL && s[next + KEY] < data)
+                agent = next;
+            travelled_path[r] = agent;
+        }
+        return agent;
+    }
+
+    public boolean add(int data) {
+        int pred = findPath(data);
+        int next = slab[pred + NEXT];
+        if (next != NIL && slab[next + KEY] == data)
+            return false; // Already exists
+
+        int h = Math.min(flip_a_coin(), MAX_HEIGHT);
+        for (int r = height; r <= h; r++)
+            travelled_path[r] = 0; // new levels hang off the sentinel
+        int node = allocate(h);
+        int[] s = slab;
+        s[node + KEY] = data;
+        s[node + HEIGHT] = h;
+        for (int r = 0; r <= h; r++) {
+            int link = travelled_path[r] + NEXT + r;
+            s[node + NEXT + r] = s[link];
+            s[link] = node;
+        }
+        height = Math.max(height, h + 1);
+        n++;
+        return true;
+    }
+
+    public boolean remove(int data) {
+        int pred = findPath(data);
+        int victim = slab[pred + NEXT];
+        if (victim == NIL || slab[victim + KEY] != data)
+            return false; // Not present
+
+        int[] s = slab;
+        int h = s[victim + HEIGHT];
+        for (int r = 0; r <= h; r++)
+            s[travelled_path[r] + NEXT + r] = s[victim + NEXT + r];
+        while (height > 0 && s[NEXT + height - 1] == NIL)
+            height--;
+        s[victim + NEXT] = free_towers[h];
+        free_towers[h] = victim;
+        n--;
+        return true;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /** Removes all keys and releases the slab. */
+    public void clear() {
+        slab = new int[64];
+        slab[KEY] = Integer.MIN_VALUE;
+        slab[HEIGHT] = MAX_HEIGHT;
+        top = NEXT + MAX_HEIGHT + 1;
+        Arrays.fill(free_towers, NIL);
+        height = 0;
+        n = 0;
+    }
+
+    /** Returns the bytes held by the slab, including unused capacity. */
+    public long slabBytes() {
+        return 4L * slab.length;
+    }
+
+    /**
+     * Draws a node height: the count of trailing one bits of a random int
+     * (geometric, p = 1/2), from a per-instance xorshift32 generator.
+     */
+    public int flip_a_coin() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
+    }
+}
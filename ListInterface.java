@@ -1,19 +1,20 @@
-public interface ListInterface{
+public interface ListInterface<T>{
   //Adds the given Object at the given index
   //Any objects at position 'index' or later should be moved 1 position right
-  void add(int index, Object data);
+  void add(int index, T data);
 
   //Adds the given object at the end of the list
-  void add(Object data);
+  void add(T data);
   
   //Removes and returns the object at given position index
-  //Objects positioned later than `
+  //Objects positioned later than `index` should be moved 1 position left
+  T remove(int index);
   
   //Sets the object at position index to be the specified Object
-  Object set(int index, Object data);
+  T set(int index, T data);
   
   //Returns the object at the given index
-  Object get(int index);
+  T get(int index);
 
   //Returns true if list contains data
   boolean contains(Object data);
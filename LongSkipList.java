@@ -0,0 +1,184 @@
+import java.util.Arrays;
+
+/**
+ * LongSkipList is a SkipList of primitive long keys with no per-node objects.
+ * It uses the IntSkipList layout with the key split over two ints:
+ * every node is a tower of ints laid out back to back in one growable int[]
+ * slab: [key_hi, key_lo, height, next_0, ..., next_height]. A node is identified
+ * by its offset in the slab and links hold offsets, so a level step is one
+ * array load and the key compared next sits on the same cache line as the
+ * node's links. Removed towers are recycled through per-height free lists.
+ *
+ * The sentinel is the tower at offset 0; since no link ever points back at
+ * it, offset 0 doubles as the null link.
+ */
+public class LongSkipList {
+    final static int MAX_HEIGHT = 24; // enough levels for tens of millions of keys
+
+    private static final int KEY_HI = 0; // slot offsets within a tower
+    private static final int KEY_LO = 1;
+    private static final int HEIGHT = 2;
+    private static final int NEXT = 3;
+
+    private static final int NIL = 0; // "no successor"; also the sentinel's offset
+
+    private int[] slab; // all towers, back to back
+    private int top; // first unused slab offset
+    private final int[] free_towers; // free_towers[h] = first recycled tower of height h, chained via next_0
+
+    private final int[] travelled_path; // reused by add/remove
+    int height; // number of non-empty levels
+    int n;
+
+    private int seed; // xorshift32 state for flip_a_coin, never zero
+
+    public LongSkipList() {
+        slab = new int[64];
+        slab[KEY_HI] = Integer.MIN_VALUE; // key_lo stays 0: Long.MIN_VALUE
+        slab[HEIGHT] = MAX_HEIGHT;
+        top = NEXT + MAX_HEIGHT + 1;
+        free_towers = new int[MAX_HEIGHT + 1];
+        travelled_path = new int[MAX_HEIGHT + 1];
+        height = 0;
+        n = 0;
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    /** Returns the offset of a free tower with levels 0..h, growing the slab if needed. */
+    private int allocate(int h) {
+        int node = free_towers[h];
+        if (node != NIL) {
+            free_towers[h] = slab[node + NEXT];
+            return node;
+        }
+        int size = NEXT + h + 1;
+        if (top + size > slab.length)
+            slab = Arrays.copyOf(slab, Math.max(slab.length * 2, top + size));
+        node = top;
+        top += size;
+        return node;
+    }
+
+    /** Reassembles the key of the tower at offset node. */
+    private static long key(int[] s, int node) {
+        return ((long) s[node + KEY_HI] << 32) | (s[node + KEY_LO] & 0xFFFFFFFFL);
+    }
+
+    /** Returns the offset of the last node whose key is < data (possibly the sentinel). */
+    public int findPredNode(long data) {
+        int[] s = slab;
+        int agent = 0;
+        for (int r = height - 1; r >= 0; r--) {
+            int next;
+            while ((next = s[agent + NEXT + r]) != NIL && key(s, next) < data)
+                agent = next;
+        }
+        return agent;
+    }
+
+    /**
+     * Returns the smallest key >= data, or absent if there is none.
+     */
+    public long find(long data, long absent) {
+        int next = slab[findPredNode(data) + NEXT];
+        return next == NIL ? absent : key(slab, next);
+    }
+
+    /** True if data is present. */
+    public boolean contains(long data) {
+        int next = slab[findPredNode(data) + NEXT];
+        return next != NIL && key(slab, next) == data;
+    }
+
+    /** Fills travelled_path with the level-r predecessors of data; returns the level-0 one. */
+    private int findPath(long data) {
+        int[] s = slab;
+        int agent = 0;
+        for (int r = height - 1; r >= 0; r--) {
+            int next;
+            while ((next = s[agent + NEXT + r]) != NIL && key(s, next) < data)
+                agent = next;
+            travelled_path[r] = agent;
+        }
+        return agent;
+    }
+
+    public boolean add(long data) {
+        int pred = findPath(data);
+        int next = slab[pred + NEXT];
+        if (next != NIL && key(slab, next) == data)
+            return false; // Already exists
+
+        int h = Math.min(flip_a_coin(), MAX_HEIGHT);
+        for (int r = height; r <= h; r++)
+            travelled_path[r] = 0; // new levels hang off the sentinel
+        int node = allocate(h);
+        int[] s = slab;
+        s[node + KEY_HI] = (int) (data >>> 32);
+        s[node + KEY_LO] = (int) data;
+        s[node + HEIGHT] = h;
+        for (int r = 0; r <= h; r++) {
+            int link = travelled_path[r] + NEXT + r;
+            s[node + NEXT + r] = s[link];
+            s[link] = node;
+        }
+        height = Math.max(height, h + 1);
+        n++;
+        return true;
+    }
+
+    public boolean remove(long data) {
+        int pred = findPath(data);
+        int victim = slab[pred + NEXT];
+        if (victim == NIL || key(slab, victim) != data)
+            return false; // Not present
+
+        int[] s = slab;
+        int h = s[victim + HEIGHT];
+        for (int r = 0; r <= h; r++)
+            s[travelled_path[r] + NEXT + r] = s[victim + NEXT + r];
+        while (height > 0 && s[NEXT + height - 1] == NIL)
+            height--;
+        s[victim + NEXT] = free_towers[h];
+        free_towers[h] = victim;
+        n--;
+        return true;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /** Removes all keys and releases the slab. */
+    public void clear() {
+        slab = new int[64];
+        slab[KEY_HI] = Integer.MIN_VALUE; // key_lo stays 0: Long.MIN_VALUE
+        slab[HEIGHT] = MAX_HEIGHT;
+        top = NEXT + MAX_HEIGHT + 1;
+        Arrays.fill(free_towers, NIL);
+        height = 0;
+        n = 0;
+    }
+
+    /** Returns the bytes held by the slab, including unused capacity. */
+    public long slabBytes() {
+        return 4L * slab.length;
+    }
+
+    /**
+     * Draws a node height: the count of trailing one bits of a random int
+     * (geometric, p = 1/2), from a per-instance xorshift32 generator.
+     */
+    public int flip_a_coin() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
+    }
+}
@@ -32,7 +32,7 @@ public class Main {
                 case 2 -> ArrayQueue.runArrayQueue(kb, new ArrayQueue());
                 case 3 -> ArrayDeque.runArrayDeque(kb, new ArrayDeque());
                 case 4 -> DualArrayStack.runDualArrayStack(kb, new DualArrayStack());
-                case 5 -> RootishArrayStack.runRootishArrayStack(kb, new RootishArrayStack());
+                case 5 -> RootishArrayStack.runRootishArrayStack(kb, new RootishArrayStack<>());
                 case 0 -> {
                     System.out.println("Exiting program...");
                     return;
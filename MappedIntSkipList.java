@@ -0,0 +1,464 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * MappedIntSkipList is IntSkipList laid out in a memory-mapped file instead of
+ * an int[] slab: the same [key, height, next_0, ..., next_height] towers
+ * linked by int offsets, behind a small header. The index lives in the OS page
+ * cache rather than on the heap, so it can be larger than the heap, and
+ * reopening a cleanly closed file only maps it: O(1), nothing is rebuilt.
+ *
+ * Every add/remove that changes the set is first appended to a write-ahead
+ * log next to the file (path + ".wal"). The mapped image is only trusted on
+ * open if it was closed cleanly and its generation matches the log's;
+ * otherwise (a crash, or an interrupted compaction) the image is rebuilt by
+ * replaying the log. compact() rewrites the log as a sorted snapshot of the
+ * live keys and the image as densely packed towers in key order, which bounds
+ * the log and restores locality after many removes.
+ *
+ * Log records are buffered; sync() makes them durable. A single mapping
+ * limits the image to 2GB.
+ */
+public class MappedIntSkipList implements Closeable {
+    final static int MAX_HEIGHT = 24;
+
+    private static final int MAGIC = 0x534b4950; // "SKIP"
+    private static final int WAL_MAGIC = 0x57414c31; // "WAL1"
+    private static final int VERSION = 1;
+
+    // Header slots, in ints from the start of the file.
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 1;
+    private static final int H_GENERATION = 2; // long: slots 2 and 3
+    private static final int H_CLEAN = 4; // 1 if the image was closed cleanly
+    private static final int H_TOP = 5;
+    private static final int H_HEIGHT = 6;
+    private static final int H_N = 7;
+    private static final int H_FREE = 8; // free_towers[0..MAX_HEIGHT]
+    private static final int SENTINEL = H_FREE + MAX_HEIGHT + 1; // offset of the sentinel tower
+
+    private static final int KEY = 0; // slot offsets within a tower
+    private static final int HEIGHT = 1;
+    private static final int NEXT = 2;
+
+    private static final int NIL = 0; // "no successor"; no tower lives inside the header
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final int MAX_INTS = Integer.MAX_VALUE / 4; // one mapping holds at most 2GB
+
+    private final Path path;
+    private final Path wal_path;
+
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private IntBuffer slab; // the mapped file, in ints
+    private FileOutputStream wal_file;
+    private DataOutputStream wal;
+
+    private long generation; // bumped by every compaction, shared by image and log
+    private boolean dirty; // the header on disk says "not clean"
+    private int top; // first unused slab offset
+    private final int[] free_towers = new int[MAX_HEIGHT + 1];
+    private final int[] travelled_path = new int[MAX_HEIGHT + 1]; // reused by add/remove
+    int height; // number of non-empty levels
+    int n;
+
+    private int seed; // xorshift32 state for flip_a_coin, never zero
+
+    private MappedIntSkipList(Path path) {
+        this.path = path;
+        this.wal_path = path.resolveSibling(path.getFileName() + ".wal");
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    /**
+     * Opens the index stored at path, creating it if it does not exist.
+     * A cleanly closed index is only mapped; otherwise it is rebuilt from
+     * its log.
+     */
+    public static MappedIntSkipList open(Path path) throws IOException {
+        MappedIntSkipList list = new MappedIntSkipList(path);
+        list.load();
+        return list;
+    }
+
+    private void load() throws IOException {
+        long wal_generation = readLogGeneration();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        if (channel.size() >= 4L * (SENTINEL + NEXT + MAX_HEIGHT + 1)) {
+            mapRegion(channel.size());
+            if (slab.get(H_MAGIC) == MAGIC && slab.get(H_VERSION) == VERSION && slab.get(H_CLEAN) == 1
+                    && (wal_generation == -1 || readGeneration() == wal_generation)) {
+                generation = readGeneration();
+                top = slab.get(H_TOP);
+                height = slab.get(H_HEIGHT);
+                n = slab.get(H_N);
+                for (int h = 0; h <= MAX_HEIGHT; h++)
+                    free_towers[h] = slab.get(H_FREE + h);
+                if (wal_generation == -1)
+                    compact(); // the log is missing: write a fresh snapshot of the image
+                else
+                    openLog();
+                return;
+            }
+        }
+        recover(wal_generation);
+    }
+
+    /** Rebuilds the image from the log (an empty one if there is no log). */
+    private void recover(long wal_generation) throws IOException {
+        if (wal_generation == -1) {
+            format(0);
+            writeLogHeader(new FileOutputStream(wal_path.toFile()), 0).close();
+            openLog();
+            checkpoint();
+            return;
+        }
+        format(wal_generation);
+        long valid = 12; // bytes of complete records, after the header
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(wal_path)))) {
+            in.skipNBytes(12);
+            while (true) {
+                byte op = in.readByte();
+                int data = in.readInt();
+                if (op == OP_ADD)
+                    insert(data, false);
+                else if (op == OP_REMOVE)
+                    delete(data, false);
+                else
+                    break; // garbage: treat as a torn tail
+                valid += 5;
+            }
+        } catch (EOFException e) {
+            // a record cut short by a crash ends the log
+        }
+        try (FileChannel log = FileChannel.open(wal_path, StandardOpenOption.WRITE)) {
+            log.truncate(valid); // appends must not follow a torn record
+        }
+        openLog();
+        checkpoint();
+    }
+
+    /** Returns the log's generation, or -1 if there is no log. */
+    private long readLogGeneration() throws IOException {
+        if (!Files.exists(wal_path) || Files.size(wal_path) < 12)
+            return -1;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(wal_path))) {
+            if (in.readInt() != WAL_MAGIC)
+                throw new IOException("Not a skip list log: " + wal_path);
+            return in.readLong();
+        }
+    }
+
+    private static DataOutputStream writeLogHeader(FileOutputStream file, long generation) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+        out.writeInt(WAL_MAGIC);
+        out.writeLong(generation);
+        return out;
+    }
+
+    private void openLog() throws IOException {
+        wal_file = new FileOutputStream(wal_path.toFile(), true);
+        wal = new DataOutputStream(new BufferedOutputStream(wal_file));
+    }
+
+    /** Maps the first bytes of the file, extending the file if needed. */
+    private void mapRegion(long bytes) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        slab = map.asIntBuffer();
+    }
+
+    private long readGeneration() {
+        return ((long) slab.get(H_GENERATION) << 32) | (slab.get(H_GENERATION + 1) & 0xffffffffL);
+    }
+
+    /** Resets the file to an empty image of the given generation. */
+    private void format(long generation) throws IOException {
+        channel.truncate(0);
+        mapRegion(4L * 1024);
+        this.generation = generation;
+        slab.put(H_MAGIC, MAGIC);
+        slab.put(H_VERSION, VERSION);
+        slab.put(H_GENERATION, (int) (generation >>> 32));
+        slab.put(H_GENERATION + 1, (int) generation);
+        slab.put(SENTINEL + KEY, Integer.MIN_VALUE);
+        slab.put(SENTINEL + HEIGHT, MAX_HEIGHT);
+        top = SENTINEL + NEXT + MAX_HEIGHT + 1;
+        Arrays.fill(free_towers, NIL);
+        height = 0;
+        n = 0;
+        dirty = false;
+        markDirty();
+    }
+
+    /** Clears the clean flag on disk before the first change to the image. */
+    private void markDirty() {
+        if (dirty)
+            return;
+        slab.put(H_CLEAN, 0);
+        map.force(0, 4 * SENTINEL);
+        dirty = true;
+    }
+
+    /** Returns the offset of a free tower with levels 0..h, growing the file if needed. */
+    private int allocate(int h) {
+        int node = free_towers[h];
+        if (node != NIL) {
+            free_towers[h] = slab.get(node + NEXT);
+            return node;
+        }
+        int size = NEXT + h + 1;
+        if (top + size > slab.capacity()) {
+            if (top + size > MAX_INTS)
+                throw new IllegalStateException("Index file is full: " + path);
+            try {
+                mapRegion(4L * Math.min(MAX_INTS, Math.max(2L * slab.capacity(), top + size)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        node = top;
+        top += size;
+        return node;
+    }
+
+    /** Returns the offset of the last tower whose key is < data (possibly the sentinel). */
+    private int findPredNode(int data) {
+        IntBuffer s = slab;
+        int agent = SENTINEL;
+        for (int r = height - 1; r >= 0; r--) {
+            int next;
+            while ((next = s.get(agent + NEXT + r)) != NIL && s.get(next + KEY) < data)
+                agent = next;
+        }
+        return agent;
+    }
+
+    /** Fills travelled_path with the level-r predecessors of data; returns the level-0 one. */
+    private int findPath(int data) {
+        IntBuffer s = slab;
+        int agent = SENTINEL;
+        for (int r = height - 1; r >= 0; r--) {
+            int next;
+            while ((next = s.get(agent + NEXT + r)) != NIL && s.get(next + KEY) < data)
+                agent = next;
+            travelled_path[r] = agent;
+        }
+        return agent;
+    }
+
+    /**
+     * Returns the smallest key >= data, or absent if there is none.
+     */
+    public int find(int data, int absent) {
+        int next = slab.get(findPredNode(data) + NEXT);
+        return next == NIL ? absent : slab.get(next + KEY);
+    }
+
+    /** True if data is present. */
+    public boolean contains(int data) {
+        int next = slab.get(findPredNode(data) + NEXT);
+        return next != NIL && slab.get(next + KEY) == data;
+    }
+
+    public boolean add(int data) {
+        return insert(data, true);
+    }
+
+    public boolean remove(int data) {
+        return delete(data, true);
+    }
+
+    private boolean insert(int data, boolean log) {
+        int pred = findPath(data);
+        int next = slab.get(pred + NEXT);
+        if (next != NIL && slab.get(next + KEY) == data)
+            return false; // Already exists
+        if (log)
+            append(OP_ADD, data);
+        markDirty();
+
+        int h = Math.min(flip_a_coin(), MAX_HEIGHT);
+        for (int r = height; r <= h; r++)
+            travelled_path[r] = SENTINEL; // new levels hang off the sentinel
+        int node = allocate(h);
+        IntBuffer s = slab;
+        s.put(node + KEY, data);
+        s.put(node + HEIGHT, h);
+        for (int r = 0; r <= h; r++) {
+            int link = travelled_path[r] + NEXT + r;
+            s.put(node + NEXT + r, s.get(link));
+            s.put(link, node);
+        }
+        height = Math.max(height, h + 1);
+        n++;
+        return true;
+    }
+
+    private boolean delete(int data, boolean log) {
+        int pred = findPath(data);
+        int victim = slab.get(pred + NEXT);
+        if (victim == NIL || slab.get(victim + KEY) != data)
+            return false; // Not present
+        if (log)
+            append(OP_REMOVE, data);
+        markDirty();
+
+        IntBuffer s = slab;
+        int h = s.get(victim + HEIGHT);
+        for (int r = 0; r <= h; r++)
+            s.put(travelled_path[r] + NEXT + r, s.get(victim + NEXT + r));
+        while (height > 0 && s.get(SENTINEL + NEXT + height - 1) == NIL)
+            height--;
+        s.put(victim + NEXT, free_towers[h]);
+        free_towers[h] = victim;
+        n--;
+        return true;
+    }
+
+    private void append(byte op, int data) {
+        try {
+            wal.writeByte(op);
+            wal.writeInt(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /** Returns the size of the mapped image in bytes. */
+    public long fileBytes() {
+        return 4L * slab.capacity();
+    }
+
+    /** Forces buffered log records to disk. */
+    public void sync() throws IOException {
+        wal.flush();
+        wal_file.getFD().sync();
+    }
+
+    /**
+     * Syncs the log, writes the header and forces the image, then marks it
+     * clean so the next open can map it without replaying the log.
+     */
+    public void checkpoint() throws IOException {
+        sync();
+        writeHeader();
+    }
+
+    /** Writes the header, forces the image and then marks it clean. */
+    private void writeHeader() {
+        slab.put(H_TOP, top);
+        slab.put(H_HEIGHT, height);
+        slab.put(H_N, n);
+        for (int h = 0; h <= MAX_HEIGHT; h++)
+            slab.put(H_FREE + h, free_towers[h]);
+        map.force();
+        slab.put(H_CLEAN, 1);
+        map.force(0, 4 * SENTINEL);
+        dirty = false;
+    }
+
+    /**
+     * Rewrites the image with the towers packed in key order and no free
+     * space, and the log as a snapshot of the live keys, both under a new
+     * generation. The new files replace the old ones by atomic rename, log
+     * first: a crash in between leaves a log newer than the image, which
+     * the next open detects and replays.
+     */
+    public void compact() throws IOException {
+        Path image_tmp = path.resolveSibling(path.getFileName() + ".compact");
+        Path wal_tmp = wal_path.resolveSibling(wal_path.getFileName() + ".compact");
+        long next_generation = generation + 1;
+
+        MappedIntSkipList fresh = new MappedIntSkipList(image_tmp);
+        fresh.channel = FileChannel.open(image_tmp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        fresh.format(next_generation);
+        int[] last = new int[MAX_HEIGHT + 1];
+        Arrays.fill(last, SENTINEL);
+        FileOutputStream wal_tmp_file = new FileOutputStream(wal_tmp.toFile());
+        try (DataOutputStream out = writeLogHeader(wal_tmp_file, next_generation)) {
+            for (int node = slab.get(SENTINEL + NEXT); node != NIL; node = slab.get(node + NEXT)) {
+                int data = slab.get(node + KEY);
+                out.writeByte(OP_ADD);
+                out.writeInt(data);
+                fresh.appendTower(data, last);
+            }
+            out.flush();
+            wal_tmp_file.getFD().sync();
+        }
+        fresh.writeHeader();
+        fresh.channel.close();
+
+        if (wal != null)
+            wal.close();
+        channel.close();
+        Files.move(wal_tmp, wal_path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(image_tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        load();
+    }
+
+    /** Appends a tower for data after every level's last tower (keys arrive in order). */
+    private void appendTower(int data, int[] last) {
+        int h = Math.min(flip_a_coin(), MAX_HEIGHT);
+        int node = allocate(h);
+        IntBuffer s = slab;
+        s.put(node + KEY, data);
+        s.put(node + HEIGHT, h);
+        for (int r = 0; r <= h; r++) {
+            s.put(last[r] + NEXT + r, node);
+            last[r] = node;
+        }
+        height = Math.max(height, h + 1);
+        n++;
+    }
+
+    /** Checkpoints the index and closes its files. */
+    @Override
+    public void close() throws IOException {
+        checkpoint();
+        wal.close();
+        channel.close();
+    }
+
+    /**
+     * Draws a node height: the count of trailing one bits of a random int
+     * (geometric, p = 1/2), from a per-instance xorshift32 generator.
+     */
+    public int flip_a_coin() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
+    }
+}
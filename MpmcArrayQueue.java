@@ -0,0 +1,242 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MpmcArrayQueue is a bounded, lock-free queue for any number of producer and
+ * consumer threads (Vyukov's bounded MPMC design).
+ * Like ArrayQueue it is a circular array addressed by a running offset, but
+ * instead of a global lock every slot carries its own sequence number:
+ * a producer may fill slot i when its sequence equals the enqueue position, a
+ * consumer may empty it when the sequence equals position + 1. Each operation
+ * is therefore a single CAS on the enqueue or dequeue counter.
+ *
+ * offer / poll never block. put / take spin briefly and then park the calling
+ * thread until the other side signals that a slot or element is available.
+ */
+public class MpmcArrayQueue extends MpmcDequeuePos {
+
+    private static final VarHandle ENQUEUE;
+    private static final VarHandle DEQUEUE;
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ENQUEUE = lookup.findVarHandle(MpmcEnqueuePos.class, "enqueuePos", long.class);
+            DEQUEUE = lookup.findVarHandle(MpmcDequeuePos.class, "dequeuePos", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int SPINS = 64; // busy-wait attempts before parking
+
+    long p30, p31, p32, p33, p34, p35, p36, p37; // pads dequeuePos away from later objects
+
+    private final ConcurrentLinkedQueue<Thread> waitingTakers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Thread> waitingPutters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs an empty queue able to hold at least capacity elements.
+     *
+     * @param capacity Requested capacity, rounded up to a power of two (min 2).
+     * @throws IllegalArgumentException if capacity < 1 or > 2^30.
+     */
+    public MpmcArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Adds an element to the back of the queue if there is room.
+     *
+     * @param data The element to add (must not be null).
+     * @return True if added, false if the queue is full.
+     */
+    public boolean offer(Object data) {
+        if (data == null)
+            throw new NullPointerException();
+        long pos = (long) ENQUEUE.getVolatile(this);
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = (long) SEQUENCE.getAcquire(sequence, index) - pos;
+            if (diff == 0) {
+                if (ENQUEUE.weakCompareAndSet(this, pos, pos + 1)) {
+                    buffer[index] = data;
+                    // Volatile, not release: the waitingTakers check below must not pass
+                    // this store, or a taker registering meanwhile could miss it and park.
+                    SEQUENCE.setVolatile(sequence, index, pos + 1); // hand the slot to consumers
+                    signal(waitingTakers);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // slot still holds the element from one lap ago
+            }
+            pos = (long) ENQUEUE.getVolatile(this);
+        }
+    }
+
+    /**
+     * Removes and returns the element at the front of the queue.
+     *
+     * @return The element removed, or null if the queue is empty.
+     */
+    public Object poll() {
+        long pos = (long) DEQUEUE.getVolatile(this);
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = (long) SEQUENCE.getAcquire(sequence, index) - (pos + 1);
+            if (diff == 0) {
+                if (DEQUEUE.weakCompareAndSet(this, pos, pos + 1)) {
+                    Object val = buffer[index];
+                    buffer[index] = null;
+                    SEQUENCE.setVolatile(sequence, index, pos + buffer.length); // free for the next lap; volatile as in offer
+                    signal(waitingPutters);
+                    return val;
+                }
+            } else if (diff < 0) {
+                return null; // producer has not published this slot yet
+            }
+            pos = (long) DEQUEUE.getVolatile(this);
+        }
+    }
+
+    /**
+     * Adds an element to the back of the queue, waiting for room if necessary.
+     *
+     * @param data The element to add (must not be null).
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void put(Object data) throws InterruptedException {
+        for (int spins = 0; !offer(data); spins++) {
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Thread me = Thread.currentThread();
+            waitingPutters.add(me);
+            if (offer(data)) { // re-check after registering so a concurrent poll cannot be missed
+                waitingPutters.remove(me);
+                return;
+            }
+            LockSupport.park(this);
+            waitingPutters.remove(me);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Removes and returns the element at the front of the queue, waiting for one
+     * to arrive if necessary.
+     *
+     * @return The element removed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Object take() throws InterruptedException {
+        Object val;
+        for (int spins = 0; (val = poll()) == null; spins++) {
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Thread me = Thread.currentThread();
+            waitingTakers.add(me);
+            if ((val = poll()) != null) { // re-check after registering so a concurrent offer cannot be missed
+                waitingTakers.remove(me);
+                break;
+            }
+            LockSupport.park(this);
+            waitingTakers.remove(me);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+        if (!isEmpty())
+            signal(waitingTakers); // pass on a wake-up this thread may have absorbed
+        return val;
+    }
+
+    /** Wakes one parked thread from waiters, if any. */
+    private static void signal(ConcurrentLinkedQueue<Thread> waiters) {
+        if (!waiters.isEmpty()) {
+            Thread waiter = waiters.poll();
+            if (waiter != null)
+                LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Returns the number of elements in the queue. The value is a snapshot and
+     * may be stale by the time it is used under concurrent access.
+     *
+     * @return Current size of the queue.
+     */
+    public int size() {
+        long dequeue = (long) DEQUEUE.getVolatile(this);
+        long enqueue = (long) ENQUEUE.getVolatile(this);
+        return (int) Math.max(0, Math.min(enqueue - dequeue, buffer.length));
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return True if the queue contains no elements, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the fixed number of slots in the ring.
+     *
+     * @return The capacity of the queue.
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
+
+/** Immutable ring state plus leading padding. */
+abstract class MpmcRing {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+
+    final Object[] buffer; // The ring, length is a power of two.
+    final long[] sequence; // Per-slot sequence numbers.
+    final int mask; // buffer.length - 1
+
+    MpmcRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        int size = Math.max(2, Integer.highestOneBit(capacity));
+        if (size < capacity)
+            size <<= 1;
+        buffer = new Object[size];
+        sequence = new long[size];
+        for (int i = 0; i < size; i++)
+            sequence[i] = i;
+        mask = size - 1;
+    }
+}
+
+/** Producers' shared counter on its own cache line. */
+abstract class MpmcEnqueuePos extends MpmcRing {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    long enqueuePos; // Next position a producer claims.
+
+    MpmcEnqueuePos(int capacity) {
+        super(capacity);
+    }
+}
+
+/** Consumers' shared counter on its own cache line. */
+abstract class MpmcDequeuePos extends MpmcEnqueuePos {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    long dequeuePos; // Next position a consumer claims (the queue's offset).
+
+    MpmcDequeuePos(int capacity) {
+        super(capacity);
+    }
+}
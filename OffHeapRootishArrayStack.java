@@ -0,0 +1,293 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * OffHeapRootishArrayStack is IntRootishArrayStack with its blocks outside
+ * the Java heap: block b is a direct ByteBuffer of b + 1 ints in native byte
+ * order. The GC only sees the small block table, never the elements, so a
+ * list of billions of ints adds nothing to GC marking or copying. Sizes and
+ * indices are longs.
+ *
+ * add/remove shift whole block runs with the absolute bulk ByteBuffer.put,
+ * which is a memmove when source and destination overlap, carrying one int
+ * across each block boundary. Blocks released by shrink(), clear() or
+ * close() are freed at once through the JDK's direct-buffer cleaner when it
+ * is accessible, and otherwise when the GC collects them. A closed stack
+ * throws IllegalStateException.
+ */
+public class OffHeapRootishArrayStack implements AutoCloseable {
+    /**
+     * At most 2^23 blocks: up to ~3.5 * 10^13 ints, 32MB per block, and
+     * 8i + 1 stays small enough for the double square root in i2b to be exact.
+     */
+    static final int MAX_BLOCKS = 1 << 23;
+
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private ByteBuffer[] blocks; // blocks[b] holds b + 1 ints; only the first r are allocated; null once closed
+    private int r; // number of blocks in use
+    private long n; // total number of elements
+    private long off_heap_bytes; // bytes held by the allocated blocks
+
+    /** Constructs an empty OffHeapRootishArrayStack with one block of size 1. */
+    public OffHeapRootishArrayStack() {
+        blocks = new ByteBuffer[4];
+        r = 0;
+        grow();
+        n = 0;
+    }
+
+    /**
+     * Returns sun.misc.Unsafe.invokeCleaner bound to the Unsafe instance, or
+     * null if it is not accessible (then blocks are freed by the GC).
+     */
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafe_class = Class.forName("sun.misc.Unsafe");
+            Field field = unsafe_class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafe_class, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Frees block now if the cleaner is accessible. block must not be used afterwards. */
+    private static void free(ByteBuffer block) {
+        if (INVOKE_CLEANER == null)
+            return;
+        try {
+            INVOKE_CLEANER.invokeExact(block);
+        } catch (Throwable e) {
+            // Left to the GC
+        }
+    }
+
+    /** Index of the first slot of block b. */
+    static long firstIndex(int b) {
+        return (long) b * (b + 1) / 2;
+    }
+
+    /** Total slots held by the first r blocks. */
+    private static long capacityOf(int r) {
+        return (long) r * (r + 1) / 2;
+    }
+
+    /**
+     * Maps a global index i to its block, as IntRootishArrayStack.i2b; exact
+     * for every index below capacityOf(MAX_BLOCKS).
+     */
+    static int i2b(long i) {
+        return ((int) Math.sqrt(8.0 * i + 1) - 1) >>> 1;
+    }
+
+    private void checkOpen() {
+        if (blocks == null)
+            throw new IllegalStateException("Stack is closed");
+    }
+
+    /**
+     * Inserts data at index, shifting later elements right.
+     *
+     * @param index Position to insert element
+     * @param data  Element to add
+     */
+    public void add(long index, int data) {
+        checkOpen();
+        if (index < 0 || index > n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        if (capacityOf(r) < n + 1)
+            grow();
+
+        // Walk back from the block that receives slot n: move each block's
+        // run right by one int and pull the previous block's last int in.
+        int b = i2b(n);
+        int j = (int) (n - firstIndex(b)); // slot to fill in block b
+        int ib = i2b(index);
+        int ij = (int) (index - firstIndex(ib));
+        while (b > ib) {
+            ByteBuffer block = blocks[b];
+            block.put(4, block, 0, j << 2);
+            block.putInt(0, blocks[b - 1].getInt((b - 1) << 2));
+            b--;
+            j = b; // last slot of the previous block
+        }
+        ByteBuffer block = blocks[ib];
+        block.put((ij + 1) << 2, block, ij << 2, (j - ij) << 2);
+        block.putInt(ij << 2, data);
+        n++;
+    }
+
+    /**
+     * Appends data at the end of the list.
+     *
+     * @param data Element to push
+     */
+    public void add(int data) {
+        checkOpen();
+        if (capacityOf(r) < n + 1)
+            grow();
+        int b = i2b(n);
+        blocks[b].putInt((int) (n - firstIndex(b)) << 2, data);
+        n++;
+    }
+
+    /**
+     * Removes the element at index, shifting later elements left.
+     *
+     * @param index Position to remove
+     * @return Removed element
+     */
+    public int remove(long index) {
+        checkOpen();
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+
+        int b = i2b(index);
+        int j = (int) (index - firstIndex(b));
+        int removed = blocks[b].getInt(j << 2);
+        int lb = i2b(n - 1);
+        int lj = (int) (n - 1 - firstIndex(lb)); // last occupied slot
+        while (b < lb) {
+            ByteBuffer block = blocks[b];
+            block.put(j << 2, block, (j + 1) << 2, (b - j) << 2);
+            block.putInt(b << 2, blocks[b + 1].getInt(0));
+            b++;
+            j = 0;
+        }
+        ByteBuffer block = blocks[lb];
+        block.put(j << 2, block, (j + 1) << 2, (lj - j) << 2);
+        n--;
+
+        if (capacityOf(r - 2) >= n)
+            shrink();
+        return removed;
+    }
+
+    /**
+     * Replaces the element at index and returns the old one.
+     *
+     * @param index Position to replace
+     * @param data  New data
+     * @return Old element at that position
+     */
+    public int set(long index, int data) {
+        checkOpen();
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        int b = i2b(index);
+        int offset = (int) (index - firstIndex(b)) << 2;
+        ByteBuffer block = blocks[b];
+        int old = block.getInt(offset);
+        block.putInt(offset, data);
+        return old;
+    }
+
+    /**
+     * Returns the element at index.
+     *
+     * @param index Position to access
+     * @return Element at that position
+     */
+    public int get(long index) {
+        checkOpen();
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        int b = i2b(index);
+        return blocks[b].getInt((int) (index - firstIndex(b)) << 2);
+    }
+
+    /**
+     * Checks if the list contains data, scanning block by block.
+     *
+     * @param data Element to find
+     * @return True if found, false otherwise
+     */
+    public boolean contains(int data) {
+        checkOpen();
+        long left = n;
+        for (int b = 0; left > 0; b++) {
+            ByteBuffer block = blocks[b];
+            int len = (int) Math.min(left, b + 1);
+            for (int j = 0; j < len; j++)
+                if (block.getInt(j << 2) == data)
+                    return true;
+            left -= len;
+        }
+        return false;
+    }
+
+    /** Adds a new direct block of size r + 1. */
+    public void grow() {
+        checkOpen();
+        if (r == MAX_BLOCKS)
+            throw new IllegalStateException("Stack is full: " + capacityOf(r) + " elements");
+        if (r == blocks.length) {
+            ByteBuffer[] new_blocks = new ByteBuffer[2 * r];
+            System.arraycopy(blocks, 0, new_blocks, 0, r);
+            blocks = new_blocks;
+        }
+        blocks[r] = ByteBuffer.allocateDirect((r + 1) << 2).order(ByteOrder.nativeOrder());
+        off_heap_bytes += (r + 1) << 2;
+        r++;
+    }
+
+    /** Frees trailing blocks while at least two of them are unused. */
+    void shrink() {
+        while (r > 1 && capacityOf(r - 2) >= n) {
+            r--;
+            off_heap_bytes -= (r + 1) << 2;
+            free(blocks[r]);
+            blocks[r] = null;
+        }
+    }
+
+    /** Returns number of stored elements. */
+    public long size() {
+        return n;
+    }
+
+    /** Returns the number of slots in the allocated blocks. */
+    public long capacity() {
+        return capacityOf(r);
+    }
+
+    /** Returns the bytes of direct memory held by the blocks. */
+    public long offHeapBytes() {
+        return off_heap_bytes;
+    }
+
+    /** True if the list is empty. */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /** Clears all data and frees every block but the first. */
+    public void clear() {
+        checkOpen();
+        n = 0;
+        shrink();
+    }
+
+    /**
+     * Frees every block. The stack cannot be used afterwards; closing it
+     * again does nothing.
+     */
+    @Override
+    public void close() {
+        if (blocks == null)
+            return;
+        for (int b = 0; b < r; b++)
+            free(blocks[b]);
+        blocks = null;
+        r = 0;
+        n = 0;
+        off_heap_bytes = 0;
+    }
+}
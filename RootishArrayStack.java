@@ -1,6 +1,13 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * RootishArrayStack implements a dynamic list using a sequence of
@@ -8,92 +15,393 @@ import java.util.Scanner;
  * 
  * Total wasted space = O(√n).
  * Supports add, remove, get, set, and interactive testing.
+ *
+ * Block b starts at global index b(b+1)/2 and is found with the exact
+ * mapping of IntRootishArrayStack. add/remove shift whole block runs with
+ * System.arraycopy. Iterators, forEach and the Spliterator keep a
+ * (block, offset) cursor and step through each block's array directly, so
+ * they do no index math per element; the Spliterator splits on block
+ * boundaries for parallel streams.
  */
-public class RootishArrayStack {
-    private List<Integer[]> blocks; // list of blocks
+public class RootishArrayStack<T> implements ListInterface<T>, Iterable<T> {
+    private Object[][] blocks; // blocks[b] has length b + 1; only the first r are allocated
+    private int r; // number of blocks in use
     private int n; // total number of elements
+    private int mod_count; // structural changes, for fail-fast iterators
 
     /** Constructs an empty RootishArrayStack with one block of size 1. */
     public RootishArrayStack() {
-        blocks = new ArrayList<>();
-        blocks.add(new Integer[1]);
+        blocks = new Object[4][];
+        blocks[0] = new Object[1];
+        r = 1;
         n = 0;
     }
 
+    /** Total slots held by the first r blocks. */
+    private static long capacityOf(int r) {
+        return (long) r * (r + 1) / 2;
+    }
+
     /** Inserts new_item at index i, shifting later elements right. */
-    public boolean add(int i, Integer new_item) {
+    @Override
+    public void add(int i, T new_item) {
         if (i < 0 || i > n)
-            throw new IndexOutOfBoundsException();
-        int r = blocks.size();
-        if (r * (r + 1) / 2 < n + 1)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + i);
+        if (capacityOf(r) < (long) n + 1)
             grow();
 
-        for (int j = n; j > i; j--)
-            set(j, get(j - 1));
+        // Walk back from the block that receives slot n: move each block's
+        // run right by one and pull the previous block's last element in.
+        int b = i2b(n);
+        int j = n - IntRootishArrayStack.firstIndex(b);
+        int ib = i2b(i);
+        int ij = i - IntRootishArrayStack.firstIndex(ib);
+        while (b > ib) {
+            System.arraycopy(blocks[b], 0, blocks[b], 1, j);
+            blocks[b][0] = blocks[b - 1][b - 1];
+            b--;
+            j = b; // last slot of the previous block
+        }
+        System.arraycopy(blocks[b], ij, blocks[b], ij + 1, j - ij);
+        blocks[ib][ij] = new_item;
+        n++;
+        mod_count++;
+    }
 
-        set(i, new_item);
+    /** Appends new_item at the end. */
+    @Override
+    public void add(T new_item) {
+        if (capacityOf(r) < (long) n + 1)
+            grow();
+        int b = i2b(n);
+        blocks[b][n - IntRootishArrayStack.firstIndex(b)] = new_item;
         n++;
-        return true;
+        mod_count++;
     }
 
     /** Removes and returns element at index i, shifting left. */
-    public Integer remove(int i) {
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int i) {
         if (i < 0 || i > n - 1)
-            throw new IndexOutOfBoundsException();
+            throw new IndexOutOfBoundsException("Index out of bounds: " + i);
 
-        Integer removed_item = get(i);
-        for (int j = i; j < n - 1; j++)
-            set(j, get(j + 1));
+        int b = i2b(i);
+        int j = i - IntRootishArrayStack.firstIndex(b);
+        T removed_item = (T) blocks[b][j];
+        int lb = i2b(n - 1);
+        int lj = n - 1 - IntRootishArrayStack.firstIndex(lb); // last occupied slot
+        while (b < lb) {
+            System.arraycopy(blocks[b], j + 1, blocks[b], j, b - j);
+            blocks[b][b] = blocks[b + 1][0];
+            b++;
+            j = 0;
+        }
+        System.arraycopy(blocks[b], j + 1, blocks[b], j, lj - j);
+        blocks[lb][lj] = null; // Do not keep the vacated slot's object reachable
         n--;
+        mod_count++;
 
-        int r = blocks.size();
-        if ((r - 2) * (r - 1) / 2 >= n)
+        if (capacityOf(r - 2) >= n)
             shrink();
         return removed_item;
     }
 
-    /** Replaces element at index i with data. */
-    public void set(int i, Integer data) {
+    /** Replaces element at index i with data and returns the old one. */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int i, T data) {
         if (i < 0 || i > n - 1)
-            throw new IndexOutOfBoundsException();
+            throw new IndexOutOfBoundsException("Index out of bounds: " + i);
         int b = i2b(i);
-        int j = i - b * (b + 1) / 2;
-        blocks.get(b)[j] = data;
+        Object[] block = blocks[b];
+        int j = i - IntRootishArrayStack.firstIndex(b);
+        T old = (T) block[j];
+        block[j] = data;
+        return old;
     }
 
     /** Returns element at index i. */
-    public Integer get(int i) {
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
         if (i < 0 || i > n - 1)
-            throw new IndexOutOfBoundsException();
+            throw new IndexOutOfBoundsException("Index out of bounds: " + i);
         int b = i2b(i);
-        int j = i - b * (b + 1) / 2;
-        return blocks.get(b)[j];
+        return (T) blocks[b][i - IntRootishArrayStack.firstIndex(b)];
+    }
+
+    /** True if some element equals data. */
+    @Override
+    public boolean contains(Object data) {
+        int left = n;
+        for (int b = 0; left > 0; b++) {
+            Object[] block = blocks[b];
+            int len = Math.min(left, block.length);
+            for (int j = 0; j < len; j++)
+                if (Objects.equals(block[j], data))
+                    return true;
+            left -= len;
+        }
+        return false;
     }
 
     /** Maps a global index i to its block index. */
     public int i2b(int i) {
-        double db = (-3.0 + Math.sqrt(9 + 8 * i)) / 2.0;
-        return (int) Math.ceil(db);
+        return IntRootishArrayStack.i2b(i);
     }
 
     /** Adds a new block of size (current + 1). */
     public void grow() {
-        blocks.add(new Integer[blocks.size() + 1]);
+        if (r == blocks.length) {
+            Object[][] new_blocks = new Object[2 * r][];
+            System.arraycopy(blocks, 0, new_blocks, 0, r);
+            blocks = new_blocks;
+        }
+        blocks[r] = new Object[r + 1];
+        r++;
     }
 
     /** Removes unnecessary trailing blocks when underused. */
     void shrink() {
-        int r = blocks.size();
-        while (r > 0 && (r - 2) * (r - 1) / 2 >= n) {
-            blocks.remove(blocks.size() - 1);
-            r--;
+        while (r > 1 && capacityOf(r - 2) >= n)
+            blocks[--r] = null;
+    }
+
+    /**
+     * Performs action on every element in order, one block at a time.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        int expected = mod_count;
+        int left = n;
+        for (int b = 0; left > 0; b++) {
+            Object[] block = blocks[b];
+            int len = Math.min(left, block.length);
+            for (int j = 0; j < len; j++)
+                action.accept((T) block[j]);
+            left -= len;
+        }
+        if (mod_count != expected)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Cursor(0);
+    }
+
+    public ListIterator<T> listIterator() {
+        return new Cursor(0);
+    }
+
+    /** Returns a ListIterator whose first next() returns the element at index. */
+    public ListIterator<T> listIterator(int index) {
+        if (index < 0 || index > n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        return new Cursor(index);
+    }
+
+    /**
+     * ListIterator that keeps the block and offset of its position and steps
+     * them directly. add/remove/set go through the list and re-seat it.
+     */
+    private final class Cursor implements ListIterator<T> {
+        private int index; // index of the element next() returns
+        private int b; // block of index
+        private int j; // offset of index within block b
+        private int last = -1; // index of the element last returned, -1 after add/remove
+        private int expected = mod_count;
+
+        Cursor(int index) {
+            seat(index);
+        }
+
+        private void seat(int index) {
+            this.index = index;
+            b = i2b(index);
+            j = index - IntRootishArrayStack.firstIndex(b);
+        }
+
+        private void checkForComodification() {
+            if (mod_count != expected)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < n;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            checkForComodification();
+            if (index >= n)
+                throw new NoSuchElementException();
+            T val = (T) blocks[b][j];
+            last = index++;
+            if (++j > b) { // past the last slot of block b
+                b++;
+                j = 0;
+            }
+            return val;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T previous() {
+            checkForComodification();
+            if (index <= 0)
+                throw new NoSuchElementException();
+            if (j == 0) {
+                b--;
+                j = b; // last slot of the previous block
+            } else {
+                j--;
+            }
+            last = --index;
+            return (T) blocks[b][j];
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            RootishArrayStack.this.remove(last);
+            seat(last); // last == index after previous(), index - 1 after next()
+            last = -1;
+            expected = mod_count;
+        }
+
+        @Override
+        public void set(T data) {
+            if (last < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            RootishArrayStack.this.set(last, data);
+        }
+
+        @Override
+        public void add(T data) {
+            checkForComodification();
+            RootishArrayStack.this.add(index, data);
+            seat(index + 1);
+            last = -1;
+            expected = mod_count;
+        }
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new BlockSpliterator(0, n, mod_count);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Spliterator over the indices [index, fence). trySplit cuts at the block
+     * boundary nearest the middle, so each half walks whole blocks.
+     */
+    private final class BlockSpliterator implements Spliterator<T> {
+        private int index; // next index to visit
+        private final int fence; // one past the last index
+        private final int expected; // mod_count when the spliterator was made
+
+        BlockSpliterator(int index, int fence, int expected) {
+            this.index = index;
+            this.fence = fence;
+            this.expected = expected;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + fence) >>> 1;
+            int b = i2b(mid);
+            int split = IntRootishArrayStack.firstIndex(b);
+            if (split <= index) // mid is in the first block: cut after it instead
+                split = IntRootishArrayStack.firstIndex(b + 1);
+            if (split >= fence)
+                return null;
+            BlockSpliterator prefix = new BlockSpliterator(index, split, expected);
+            index = split;
+            return prefix;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (index >= fence)
+                return false;
+            int b = i2b(index);
+            action.accept((T) blocks[b][index - IntRootishArrayStack.firstIndex(b)]);
+            index++;
+            if (mod_count != expected)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            int b = i2b(index);
+            int j = index - IntRootishArrayStack.firstIndex(b);
+            int left = fence - index;
+            index = fence;
+            while (left > 0) {
+                Object[] block = blocks[b];
+                int end = Math.min(block.length, j + left);
+                for (int k = j; k < end; k++)
+                    action.accept((T) block[k]);
+                left -= end - j;
+                b++;
+                j = 0;
+            }
+            if (mod_count != expected)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
         }
     }
 
     /** Prints both linear view and block view of the stack. */
     public void print() {
         System.out.println("\n--- RootishArrayStack State ---");
-        System.out.println("n = " + n + ", blocks = " + blocks.size());
+        System.out.println("n = " + n + ", blocks = " + r);
         System.out.print("Linear view: [");
         for (int i = 0; i < n; i++) {
             System.out.print(get(i));
@@ -103,11 +411,11 @@ public class RootishArrayStack {
         System.out.println("]");
 
         System.out.println("Block structure:");
-        for (int b = 0; b < blocks.size(); b++) {
+        for (int b = 0; b < r; b++) {
             System.out.print("  Block " + b + ": [");
-            Integer[] block = blocks.get(b);
+            Object[] block = blocks[b];
             for (int j = 0; j < block.length; j++) {
-                System.out.print(block[j] != null ? block[j] : "_");
+                System.out.print(IntRootishArrayStack.firstIndex(b) + j < n ? block[j] : "_");
                 if (j < block.length - 1)
                     System.out.print(", ");
             }
@@ -117,18 +425,23 @@ public class RootishArrayStack {
     }
 
     /** Returns number of stored elements. */
+    @Override
     public int size() {
         return n;
     }
 
     /** Clears all data. */
+    @Override
     public void clear() {
-        blocks.clear();
-        blocks.add(new Integer[1]);
+        blocks = new Object[4][];
+        blocks[0] = new Object[1];
+        r = 1;
         n = 0;
+        mod_count++;
     }
 
     /** True if stack is empty. */
+    @Override
     public boolean isEmpty() {
         return n == 0;
     }
@@ -136,7 +449,7 @@ public class RootishArrayStack {
     /**
      * Interactive menu to test RootishArrayStack operations.
      */
-    public static void runRootishArrayStack(Scanner sc, RootishArrayStack stack) {
+    public static void runRootishArrayStack(Scanner sc, RootishArrayStack<Integer> stack) {
         while (true) {
             System.out.println("\n===== ROOTISH ARRAY STACK MENU =====");
             System.out.println("1. Add");
@@ -1,16 +1,107 @@
 
-import java.util.LinkedList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
 
 public class SkipList {
     Node sentinel;
     int height;
     int n;
 
+    // Scratch space reused by add/remove so the update path allocates only the new node.
+    // In finger-search mode it also holds the finger: the predecessor path of the last operation.
+    private final Node[] travelled_path;
+    private final int[] travelled_rank;
+
+    private boolean finger_search; // start searches from the last operation's path
+
+    private BloomFilter bloom; // optional guard in front of contains(), null when disabled
+    private int bloom_stale; // values removed since the filter was built; their bits are still set
+    private long bloom_negatives; // contains() answered by the filter alone
+    private long bloom_hits; // filter passed, value present
+    private long bloom_false_positives; // filter passed, value absent
+
+    private int seed; // xorshift32 state for flip_a_coin, never zero
+
     public SkipList() {
         sentinel = new Node();
         height = 0;
         n = 0;
+        travelled_path = new Node[sentinel.next.length];
+        travelled_rank = new int[sentinel.next.length];
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    /**
+     * Enables or disables finger search. When enabled, find/add/remove remember
+     * the predecessor path of the last operation and start the next search
+     * from the lowest level of that path that can still reach the target, so
+     * a search d positions away from the previous one costs O(log d).
+     */
+    public void setFingerSearch(boolean enabled) {
+        finger_search = enabled;
+        Arrays.fill(travelled_path, null);
+    }
+
+    public boolean isFingerSearch() {
+        return finger_search;
+    }
+
+    /**
+     * Puts a Bloom filter in front of contains(), so most absent values are
+     * rejected after a few hash probes without touching a node. The filter is
+     * sized for max(expected, n) values at the given false-positive rate; it is
+     * rebuilt when removes leave too many stale bits and grown when the list
+     * outgrows it.
+     */
+    public void enableBloomFilter(int expected, double false_positive_rate) {
+        bloom = new BloomFilter(Math.max(expected, n), false_positive_rate);
+        rebuildBloomFilter();
+    }
+
+    public void disableBloomFilter() {
+        bloom = null;
+    }
+
+    /**
+     * Rebuilds the filter from the current values, dropping the bits of
+     * removed ones, and doubles its capacity if the list has outgrown it.
+     */
+    public void rebuildBloomFilter() {
+        if (bloom == null)
+            return;
+        if (n > bloom.capacity())
+            bloom = new BloomFilter(2 * n, bloom.falsePositiveRate());
+        else
+            bloom.clear();
+        for (Node node = sentinel.next[0]; node != null; node = node.next[0])
+            bloom.put(node.data);
+        bloom_stale = 0;
+    }
+
+    /** Records removed values; rebuilds once they reach half the filter's capacity. */
+    private void bloomRemoved(int count) {
+        if (bloom != null && (bloom_stale += count) > bloom.capacity() / 2)
+            rebuildBloomFilter();
+    }
+
+    /** Number of contains() calls the filter answered without a search. */
+    public long bloomNegatives() {
+        return bloom_negatives;
+    }
+
+    /** Number of contains() calls the filter passed that found the value. */
+    public long bloomHits() {
+        return bloom_hits;
+    }
+
+    /** Number of contains() calls the filter passed for an absent value. */
+    public long bloomFalsePositives() {
+        return bloom_false_positives;
+    }
+
+    public void resetBloomCounters() {
+        bloom_negatives = bloom_hits = bloom_false_positives = 0;
     }
 
     public Node findPredNode(Integer data) {
@@ -21,53 +112,422 @@ public class SkipList {
         return agent;
     }
 
+    /**
+     * Fills travelled_path/travelled_rank with the predecessor of data and its
+     * position on every level and returns the level-0 predecessor.
+     * With finger search the walk starts from the remembered path: it climbs
+     * until the finger node at level r is before data and its level-r link is
+     * not, then descends from there.
+     */
+    private Node search(Integer data) {
+        int r = sentinel.next.length - 1;
+        Node agent = sentinel;
+        int rank = -1; // position of agent, the sentinel is at -1
+        if (finger_search && travelled_path[0] != null) {
+            int top = r;
+            for (r = 0; r < top; r++) {
+                Node finger = travelled_path[r];
+                if ((finger == sentinel || Integer.compare(data, finger.data) > 0)
+                        && (finger.next[r] == null || Integer.compare(data, finger.next[r].data) <= 0))
+                    break;
+            }
+            Node finger = travelled_path[r];
+            if (finger == sentinel || Integer.compare(data, finger.data) > 0) {
+                agent = finger;
+                rank = travelled_rank[r];
+            } else {
+                r = top; // target lies before the finger's top: start over
+            }
+        }
+        for (; r >= 0; r--) {
+            while (agent.next[r] != null && Integer.compare(data, agent.next[r].data) > 0) {
+                rank += agent.length[r];
+                agent = agent.next[r];
+            }
+            travelled_path[r] = agent;
+            travelled_rank[r] = rank;
+        }
+        return agent;
+    }
+
+    /** Drops the search path unless it is kept as the finger. */
+    private void releasePath() {
+        if (!finger_search)
+            Arrays.fill(travelled_path, null); // do not keep stale nodes reachable
+    }
+
     public Integer find(Integer data) {
-        Node node = findPredNode(data);
+        Node node;
+        if (finger_search)
+            node = search(data);
+        else
+            node = findPredNode(data);
         return node.next[0] == null ? null : node.next[0].data;
     }
 
+    /**
+     * True if data is present. With a Bloom filter enabled, a value the filter
+     * rules out returns false without a search.
+     */
+    public boolean contains(Integer data) {
+        if (bloom != null && !bloom.mightContain(data)) {
+            bloom_negatives++;
+            return false;
+        }
+        boolean found = data.equals(find(data));
+        if (bloom != null) {
+            if (found)
+                bloom_hits++;
+            else
+                bloom_false_positives++;
+        }
+        return found;
+    }
+
     public boolean remove(Integer data) {
+        Node agent = search(data);
+        Node victim = agent.next[0];
+        if (victim == null || !victim.data.equals(data)) {
+            releasePath();
+            return false; // Not present
+        }
+
+        for (int r = 0; r < sentinel.next.length; r++) {
+            Node pred = travelled_path[r];
+            if (pred.next[r] == victim) {
+                pred.length[r] += victim.length[r] - 1;
+                pred.next[r] = victim.next[r];
+                if (pred == sentinel && pred.next[r] == null)
+                    height--;
+            } else {
+                pred.length[r]--; // the link spans the victim
+            }
+        }
+        n--;
+        releasePath(); // the path is still the predecessor path of data
+        bloomRemoved(1);
+        return true;
+    }
+
+    public boolean add(Integer data) {
+        Node agent = search(data);
+        if (agent.next[0] != null && agent.next[0].data.equals(data)) {
+            releasePath();
+            return false; // Already exists
+        }
+        link(travelled_path, travelled_rank, new Node(data, flip_a_coin()));
+        releasePath(); // the path is still the predecessor path of data
+        return true;
+    }
+
+    /**
+     * Links new_node in right after path[r] on every level, where rank[r] is
+     * the position of path[r], and updates the link lengths around it.
+     */
+    private void link(Node[] path, int[] rank, Node new_node) {
+        int position = rank[0] + 1;
+        for (int r = 0; r < sentinel.next.length; r++) {
+            Node pred = path[r];
+            if (r <= new_node.getHeight()) {
+                new_node.next[r] = pred.next[r];
+                new_node.length[r] = rank[r] + pred.length[r] + 1 - position;
+                pred.next[r] = new_node;
+                pred.length[r] = position - rank[r];
+            } else {
+                pred.length[r]++; // the link now spans the new node
+            }
+        }
+        height = Math.max(height, new_node.getHeight() + 1);
+        n++;
+        if (bloom != null) {
+            if (n > bloom.capacity())
+                rebuildBloomFilter(); // includes new_node, already linked
+            else
+                bloom.put(new_node.data);
+        }
+    }
+
+    /**
+     * Merges an ascending batch of values into the list in a single forward
+     * pass: the search for each value resumes from the previous value's
+     * predecessors instead of the sentinel. Values already present are skipped.
+     *
+     * @param keys Values in ascending order.
+     * @return The number of values added.
+     * @throws IllegalArgumentException if keys are not in ascending order.
+     */
+    public int addAllSorted(Iterator<Integer> keys) {
+        Arrays.fill(travelled_path, null); // new nodes may land between a finger and its target
+        Node[] path = new Node[sentinel.next.length];
+        int[] rank = new int[sentinel.next.length];
+        Arrays.fill(path, sentinel);
+        Arrays.fill(rank, -1);
+        Integer previous = null;
+        int added = 0;
+        while (keys.hasNext()) {
+            Integer data = keys.next();
+            if (previous != null) {
+                int compare_result = Integer.compare(data, previous);
+                if (compare_result < 0)
+                    throw new IllegalArgumentException("Keys are not sorted: " + data + " after " + previous);
+                if (compare_result == 0)
+                    continue; // Repeated in the batch; path[0] may already be its node
+            }
+            previous = data;
+
+            for (int r = sentinel.next.length - 1; r >= 0; r--) {
+                if (r + 1 < path.length && rank[r + 1] > rank[r]) { // the level above got further
+                    path[r] = path[r + 1];
+                    rank[r] = rank[r + 1];
+                }
+                Node agent = path[r];
+                while (agent.next[r] != null && Integer.compare(data, agent.next[r].data) > 0) {
+                    rank[r] += agent.length[r];
+                    agent = agent.next[r];
+                }
+                path[r] = agent;
+            }
+            if (path[0].next[0] != null && path[0].next[0].data.equals(data))
+                continue; // Already exists
+
+            Node new_node = new Node(data, flip_a_coin());
+            int position = rank[0] + 1;
+            link(path, rank, new_node);
+            for (int r = 0; r <= new_node.getHeight(); r++) { // later values start after it
+                path[r] = new_node;
+                rank[r] = position;
+            }
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Builds a list from ascending values in O(n): towers are appended left to
+     * right, keeping the last node of every level, so no search is needed.
+     * Heights are still drawn per node, giving the usual level distribution.
+     *
+     * @param keys Values in ascending order; repeated values are kept once.
+     * @throws IllegalArgumentException if keys are not in ascending order.
+     */
+    public static SkipList fromSorted(Iterator<Integer> keys) {
+        SkipList list = new SkipList();
+        Node[] last = new Node[list.sentinel.next.length];
+        int[] last_rank = new int[last.length];
+        Arrays.fill(last, list.sentinel);
+        Arrays.fill(last_rank, -1);
+        Integer previous = null;
+        while (keys.hasNext()) {
+            Integer data = keys.next();
+            if (previous != null) {
+                int compare_result = Integer.compare(data, previous);
+                if (compare_result < 0)
+                    throw new IllegalArgumentException("Keys are not sorted: " + data + " after " + previous);
+                if (compare_result == 0)
+                    continue;
+            }
+            previous = data;
+
+            Node node = list.new Node(data, list.flip_a_coin());
+            int position = list.n;
+            for (int r = 0; r <= node.getHeight(); r++) {
+                last[r].next[r] = node;
+                last[r].length[r] = position - last_rank[r];
+                last[r] = node;
+                last_rank[r] = position;
+            }
+            list.height = Math.max(list.height, node.getHeight() + 1);
+            list.n++;
+        }
+        for (int r = 0; r < last.length; r++)
+            last[r].length[r] = list.n - last_rank[r]; // last links reach the end
+        return list;
+    }
+
+    /** Builds a list from ascending values in O(n); see fromSorted(Iterator). */
+    public static SkipList fromSorted(IntStream keys) {
+        return fromSorted(keys.iterator());
+    }
+
+    /**
+     * Fills path/rank with the predecessor of data and its position on every
+     * level, searching from the sentinel (the finger is not used or moved).
+     */
+    private void pathTo(Integer data, Node[] path, int[] rank) {
         Node agent = sentinel;
-        int compare_result = 0;
-        boolean removed = false;
+        int position = -1;
         for (int r = sentinel.next.length - 1; r >= 0; r--) {
-            while (agent.next[r] != null && (compare_result = Integer.compare(data, agent.next[r].data)) > 0)
+            while (agent.next[r] != null && Integer.compare(data, agent.next[r].data) > 0) {
+                position += agent.length[r];
                 agent = agent.next[r];
-            if (agent.next[r] != null && compare_result == 0) {
-                removed = true;
-                agent.next[r] = agent.next[r].next[r];
-                if (agent == sentinel && agent.next[r] == null)
-                    height--;
+            }
+            path[r] = agent;
+            rank[r] = position;
+        }
+    }
+
+    /** Drops empty top levels after a bulk unlink. */
+    private void trimHeight() {
+        while (height > 0 && sentinel.next[height - 1] == null)
+            height--;
+    }
+
+    /**
+     * Removes every value v with lo <= v < hi in O(log n), however many there
+     * are: the predecessors of lo and of hi are found once, and on every level
+     * the whole run between them is unlinked with a single pointer update.
+     *
+     * @return The number of values removed.
+     */
+    public int removeRange(Integer lo, Integer hi) {
+        if (Integer.compare(lo, hi) >= 0)
+            return 0;
+        Arrays.fill(travelled_path, null); // the finger may point into the range
+        Node[] before = new Node[sentinel.next.length];
+        int[] before_rank = new int[before.length];
+        Node[] last = new Node[before.length];
+        int[] last_rank = new int[before.length];
+        pathTo(lo, before, before_rank);
+        pathTo(hi, last, last_rank);
+        int removed = last_rank[0] - before_rank[0];
+        if (removed == 0)
+            return 0;
+
+        for (int r = 0; r < before.length; r++) {
+            Node pred = before[r];
+            if (last[r] != pred) { // last[r] is inside the range: skip to its successor
+                pred.length[r] = last_rank[r] + last[r].length[r] - before_rank[r] - removed;
+                pred.next[r] = last[r].next[r];
+            } else {
+                pred.length[r] -= removed; // the link spans the whole range
             }
         }
-        if (removed)
-            n--;
+        n -= removed;
+        trimHeight();
+        bloomRemoved(removed);
         return removed;
     }
 
-    public boolean add(Integer data) {
-        Node agent = sentinel;
-        LinkedList<Node> travelled_path = new LinkedList<>();
-        int compare_result = 0;
+    /**
+     * Moves every value >= data into a new list in O(log n) by cutting each
+     * level's link at the predecessor of data.
+     *
+     * @return A list holding the values >= data; this list keeps the rest.
+     */
+    public SkipList split(Integer data) {
+        Arrays.fill(travelled_path, null);
+        Node[] path = new Node[sentinel.next.length];
+        int[] rank = new int[path.length];
+        pathTo(data, path, rank);
+        int kept = rank[0] + 1;
 
-        for (int r = height - 1; r >= 0; r--) {
-            while (agent.next[r] != null && (compare_result = Integer.compare(data, agent.next[r].data)) > 0)
-                agent = agent.next[r];
-            if (agent.next[r] != null && compare_result == 0)
-                return false; // Already exists
-            travelled_path.add(agent);
+        SkipList tail = new SkipList();
+        for (int r = 0; r < path.length; r++) {
+            Node pred = path[r];
+            tail.sentinel.next[r] = pred.next[r];
+            tail.sentinel.length[r] = rank[r] + pred.length[r] - rank[0];
+            pred.next[r] = null;
+            pred.length[r] = kept - rank[r];
         }
+        tail.n = n - kept;
+        tail.height = height;
+        tail.trimHeight();
+        n = kept;
+        trimHeight();
+        bloomRemoved(tail.n);
+        return tail;
+    }
 
-        Node new_node = new Node(data, flip_a_coin());
+    /**
+     * Appends all values of other, which must all be greater than the values
+     * of this list, in O(log n) by linking the last tower of every level to
+     * other's first. other is left empty.
+     *
+     * @throws IllegalArgumentException if the ranges overlap or other is this list.
+     */
+    public void concat(SkipList other) {
+        if (other == this)
+            throw new IllegalArgumentException("Cannot concat a list with itself");
+        if (other.n == 0)
+            return;
+        Node[] last = new Node[sentinel.next.length];
+        int[] last_rank = new int[last.length];
+        Node agent = sentinel;
+        int position = -1;
+        for (int r = last.length - 1; r >= 0; r--) {
+            while (agent.next[r] != null) {
+                position += agent.length[r];
+                agent = agent.next[r];
+            }
+            last[r] = agent;
+            last_rank[r] = position;
+        }
+        if (n > 0 && Integer.compare(last[0].data, other.sentinel.next[0].data) >= 0)
+            throw new IllegalArgumentException("Lists overlap: " + last[0].data + " >= " + other.sentinel.next[0].data);
 
-        for (int i = 0; i <= new_node.getHeight(); i++) {
-            new_node.next[i] = travelled_path.getLast().next[i];
-            travelled_path.pop().next[i] = agent;
-            if (i > height)
-                ++height;
+        Arrays.fill(travelled_path, null);
+        Arrays.fill(other.travelled_path, null);
+        for (int r = 0; r < last.length; r++) {
+            last[r].next[r] = other.sentinel.next[r];
+            last[r].length[r] = n + other.sentinel.length[r] - 1 - last_rank[r];
         }
-        n++;
-        return true;
+        n += other.n;
+        height = Math.max(height, other.height);
+        if (bloom != null) {
+            if (n > bloom.capacity())
+                rebuildBloomFilter();
+            else
+                for (Node node = last[0].next[0]; node != null; node = node.next[0])
+                    bloom.put(node.data);
+        }
+
+        Arrays.fill(other.sentinel.next, null);
+        Arrays.fill(other.sentinel.length, 1);
+        other.n = 0;
+        other.height = 0;
+    }
+
+    /**
+     * Returns the value at position rank (0 = smallest) in O(log n).
+     *
+     * @throws IndexOutOfBoundsException if rank < 0 or rank >= n
+     */
+    public Integer get(int rank) {
+        if (rank < 0 || rank >= n)
+            throw new IndexOutOfBoundsException("Rank out of bounds: " + rank);
+        Node agent = sentinel;
+        int position = -1;
+        for (int r = height - 1; r >= 0; r--)
+            while (agent.next[r] != null && position + agent.length[r] <= rank) {
+                position += agent.length[r];
+                agent = agent.next[r];
+            }
+        return agent.data;
+    }
+
+    /**
+     * Returns the number of values strictly smaller than data in O(log n).
+     */
+    public int rankOf(Integer data) {
+        Node agent = sentinel;
+        int position = -1;
+        for (int r = height - 1; r >= 0; r--)
+            while (agent.next[r] != null && Integer.compare(data, agent.next[r].data) > 0) {
+                position += agent.length[r];
+                agent = agent.next[r];
+            }
+        return position + 1;
+    }
+
+    /**
+     * Returns the number of values v with lo <= v < hi in O(log n).
+     */
+    public int countInRange(Integer lo, Integer hi) {
+        return Math.max(0, rankOf(hi) - rankOf(lo));
+    }
+
+    public int size() {
+        return n;
     }
 
     public class Node {
@@ -75,15 +535,20 @@ public class SkipList {
 
         public Node next[];
 
+        public int length[]; // length[r] = number of positions the level-r link skips
+
         public Integer data;
 
         public Node(Integer data, int height) {
             next = new Node[1 + Math.min(height, MAX_HEIGHT)]; // 1 is for the level-0
+            length = new int[next.length];
             this.data = data;
         }
 
         public Node() {
             next = new Node[1 + MAX_HEIGHT]; // 1 is for the level-0
+            length = new int[next.length];
+            Arrays.fill(length, 1); // an empty list's links reach the end, position 0
             this.data = Integer.MIN_VALUE;
         }
 
@@ -92,14 +557,17 @@ public class SkipList {
         }
     }
 
-    public static int flip_a_coin() {
-        int coin = (new Random()).nextInt();
-        int mask = 1;
-        int head_count = 0;
-        while ((mask & coin) != 0) {
-            mask <<= 1;
-            head_count++;
-        }
-        return head_count;
+    /**
+     * Draws a node height: the number of heads before the first tail, i.e. the
+     * count of trailing one bits of a random int (geometric, p = 1/2).
+     * Uses a per-instance xorshift32 generator, so it allocates nothing.
+     */
+    public int flip_a_coin() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
     }
 }
@@ -0,0 +1,550 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * SkipListMap is an ordered map built from the SkipList node design: a
+ * sentinel with MAX_HEIGHT + 1 levels, nodes holding a next[] tower, and
+ * geometric heights from a per-instance xorshift generator. Each node carries
+ * its value inline, so a lookup is a single search.
+ *
+ * headMap / tailMap / subMap return live views over a key range. The entry
+ * set of the map or of any view has a Spliterator that splits on the tallest
+ * tower inside its range, so parallelStream() over a range divides it into
+ * roughly equal halves without walking it.
+ *
+ * @param <K> Key type, ordered by its natural ordering.
+ * @param <V> Value type.
+ */
+public class SkipListMap<K extends Comparable<? super K>, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+    final static int MAX_HEIGHT = 16;
+
+    final Node<K, V> sentinel;
+    int height; // number of non-empty levels
+    int n;
+
+    private final Node<K, V>[] travelled_path; // reused by put/remove
+
+    private int seed; // xorshift32 state for flip_a_coin, never zero
+
+    @SuppressWarnings("unchecked")
+    public SkipListMap() {
+        sentinel = new Node<>(null, null, MAX_HEIGHT);
+        height = 0;
+        n = 0;
+        travelled_path = (Node<K, V>[]) new Node<?, ?>[MAX_HEIGHT + 1];
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    /** Returns the last node whose key is < key (possibly the sentinel). */
+    Node<K, V> findPredNode(K key) {
+        Node<K, V> agent = sentinel;
+        for (int r = height - 1; r >= 0; r--)
+            while (agent.next[r] != null && key.compareTo(agent.next[r].key) > 0)
+                agent = agent.next[r];
+        return agent;
+    }
+
+    /** Like findPredNode, but records the predecessor on every level. */
+    private Node<K, V> findPath(K key) {
+        Node<K, V> agent = sentinel;
+        for (int r = MAX_HEIGHT; r >= 0; r--) {
+            while (agent.next[r] != null && key.compareTo(agent.next[r].key) > 0)
+                agent = agent.next[r];
+            travelled_path[r] = agent;
+        }
+        return agent;
+    }
+
+    /** Returns the first node with key >= lo, or the first node if lo is null. */
+    Node<K, V> ceilingNode(K lo) {
+        return lo == null ? sentinel.next[0] : findPredNode(lo).next[0];
+    }
+
+    /** Returns the last node with key < hi, or the last node if hi is null. */
+    Node<K, V> lowerNode(K hi) {
+        Node<K, V> agent = sentinel;
+        for (int r = height - 1; r >= 0; r--)
+            while (agent.next[r] != null && (hi == null || hi.compareTo(agent.next[r].key) > 0))
+                agent = agent.next[r];
+        return agent == sentinel ? null : agent;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> findNode(Object key) {
+        K k = (K) Objects.requireNonNull(key);
+        Node<K, V> next = findPredNode(k).next[0];
+        return next != null && k.compareTo(next.key) == 0 ? next : null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = findNode(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findNode(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Node<K, V> pred = findPath(key);
+        Node<K, V> next = pred.next[0];
+        if (next != null && key.compareTo(next.key) == 0) {
+            releasePath();
+            return next.setValue(value);
+        }
+        Node<K, V> new_node = new Node<>(key, value, Math.min(flip_a_coin(), MAX_HEIGHT));
+        for (int r = 0; r <= new_node.getHeight(); r++) {
+            new_node.next[r] = travelled_path[r].next[r];
+            travelled_path[r].next[r] = new_node;
+        }
+        height = Math.max(height, new_node.getHeight() + 1);
+        n++;
+        releasePath();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        K k = (K) Objects.requireNonNull(key);
+        Node<K, V> pred = findPath(k);
+        Node<K, V> victim = pred.next[0];
+        if (victim == null || k.compareTo(victim.key) != 0) {
+            releasePath();
+            return null;
+        }
+        for (int r = 0; r <= victim.getHeight(); r++)
+            travelled_path[r].next[r] = victim.next[r];
+        while (height > 0 && sentinel.next[height - 1] == null)
+            height--;
+        n--;
+        releasePath();
+        return victim.value;
+    }
+
+    /** Clears the reusable path so it does not keep nodes reachable. */
+    private void releasePath() {
+        Arrays.fill(travelled_path, null);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(sentinel.next, null);
+        height = 0;
+        n = 0;
+    }
+
+    // ==================== NAVIGATION ====================
+
+    /** Returns the entry with the greatest key <= key, or null. */
+    public Map.Entry<K, V> floorEntry(K key) {
+        Node<K, V> pred = findPredNode(Objects.requireNonNull(key));
+        Node<K, V> next = pred.next[0];
+        if (next != null && key.compareTo(next.key) == 0)
+            return next;
+        return pred == sentinel ? null : pred;
+    }
+
+    /** Returns the entry with the least key >= key, or null. */
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return ceilingNode(Objects.requireNonNull(key));
+    }
+
+    public K floorKey(K key) {
+        Map.Entry<K, V> e = floorEntry(key);
+        return e == null ? null : e.getKey();
+    }
+
+    public K ceilingKey(K key) {
+        Map.Entry<K, V> e = ceilingEntry(key);
+        return e == null ? null : e.getKey();
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return null; // natural ordering
+    }
+
+    @Override
+    public K firstKey() {
+        Node<K, V> first = sentinel.next[0];
+        if (first == null)
+            throw new NoSuchElementException();
+        return first.key;
+    }
+
+    @Override
+    public K lastKey() {
+        Node<K, V> last = lowerNode(null);
+        if (last == null)
+            throw new NoSuchElementException();
+        return last.key;
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return new SubMap(null, Objects.requireNonNull(toKey));
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return new SubMap(Objects.requireNonNull(fromKey), null);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        if (fromKey.compareTo(toKey) > 0)
+            throw new IllegalArgumentException("fromKey > toKey");
+        return new SubMap(fromKey, toKey);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet(null, null);
+    }
+
+    // ==================== VIEWS ====================
+
+    /** Live view of the keys lo <= k < hi; a null bound is open. */
+    final class SubMap extends AbstractMap<K, V> implements SortedMap<K, V> {
+        final K lo, hi;
+
+        SubMap(K lo, K hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        boolean inRange(Object key) {
+            @SuppressWarnings("unchecked")
+            K k = (K) key;
+            return (lo == null || k.compareTo(lo) >= 0) && (hi == null || k.compareTo(hi) < 0);
+        }
+
+        @Override
+        public V get(Object key) {
+            return inRange(key) ? SkipListMap.this.get(key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return inRange(key) && SkipListMap.this.containsKey(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (!inRange(key))
+                throw new IllegalArgumentException("Key out of range: " + key);
+            return SkipListMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return inRange(key) ? SkipListMap.this.remove(key) : null;
+        }
+
+        /** Counts the keys in range by walking them: O(k). */
+        @Override
+        public int size() {
+            int count = 0;
+            for (Node<K, V> node = ceilingNode(lo); node != null && below(node, hi); node = node.next[0])
+                count++;
+            return count;
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new EntrySet(lo, hi);
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return null;
+        }
+
+        @Override
+        public K firstKey() {
+            Node<K, V> first = ceilingNode(lo);
+            if (first == null || !below(first, hi))
+                throw new NoSuchElementException();
+            return first.key;
+        }
+
+        @Override
+        public K lastKey() {
+            Node<K, V> last = lowerNode(hi);
+            if (last == null || (lo != null && last.key.compareTo(lo) < 0))
+                throw new NoSuchElementException();
+            return last.key;
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            if (fromKey.compareTo(toKey) > 0)
+                throw new IllegalArgumentException("fromKey > toKey");
+            return tailMap(fromKey).headMap(toKey);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            if (!inRange(toKey) && !Objects.equals(toKey, hi))
+                throw new IllegalArgumentException("toKey out of range: " + toKey);
+            return new SubMap(lo, toKey);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            if (!inRange(fromKey))
+                throw new IllegalArgumentException("fromKey out of range: " + fromKey);
+            return new SubMap(fromKey, hi);
+        }
+    }
+
+    /** True if node's key is below the exclusive bound hi (null = unbounded). */
+    boolean below(Node<K, V> node, K hi) {
+        return hi == null || node.key.compareTo(hi) < 0;
+    }
+
+    /** Entries with lo <= key < hi, in key order. */
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        final K lo, hi;
+
+        EntrySet(K lo, K hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<Map.Entry<K, V>>() {
+                Node<K, V> next = ceilingNode(lo);
+                Node<K, V> last;
+
+                @Override
+                public boolean hasNext() {
+                    return next != null && below(next, hi);
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    last = next;
+                    next = next.next[0];
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null)
+                        throw new IllegalStateException();
+                    SkipListMap.this.remove(last.key);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return lo == null && hi == null ? n : new SubMap(lo, hi).size();
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> spliterator() {
+            boolean whole = lo == null && hi == null;
+            return new RangeSpliterator(ceilingNode(lo), hi, height - 1, whole ? n : estimateRange(lo, hi), whole);
+        }
+    }
+
+    /**
+     * Estimates the number of keys in [lo, hi) in O(log n) expected time:
+     * descending from the top, the first level with at least 8 towers in
+     * the range stands for about 2^r keys per tower; level 0 is exact.
+     */
+    long estimateRange(K lo, K hi) {
+        Node<K, V> agent = sentinel;
+        for (int r = height - 1; r >= 0; r--) {
+            while (lo != null && agent.next[r] != null && agent.next[r].key.compareTo(lo) < 0)
+                agent = agent.next[r];
+            long count = 0;
+            for (Node<K, V> x = agent.next[r]; x != null && below(x, hi); x = x.next[r])
+                count++;
+            if (count >= 8 || r == 0)
+                return Math.min(n, count << r);
+        }
+        return 0;
+    }
+
+    /**
+     * Spliterator over the nodes from current up to (excluding) key fence.
+     * trySplit descends from the top level to the first level that has a
+     * tower strictly inside the range, and cuts at the middle tower of that
+     * level: since the level above had none, there are only a few to choose
+     * from, and each side gets about half of the nodes below.
+     */
+    final class RangeSpliterator implements Spliterator<Map.Entry<K, V>> {
+        Node<K, V> current; // next node to visit, null when exhausted
+        K fence; // exclusive upper bound, null = end of list
+        int level; // no tower above this level lies inside the range
+        long estimate;
+        boolean sized; // estimate is exact (whole, unsplit map)
+
+        RangeSpliterator(Node<K, V> current, K fence, int level, long estimate, boolean sized) {
+            this.current = current;
+            this.fence = fence;
+            this.level = level;
+            this.estimate = estimate;
+            this.sized = sized;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            if (current == null || !below(current, fence)) {
+                current = null;
+                return false;
+            }
+            Node<K, V> node = current;
+            current = node.next[0];
+            action.accept(node);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            Node<K, V> node = current;
+            current = null;
+            for (; node != null && below(node, fence); node = node.next[0])
+                action.accept(node);
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            if (current == null)
+                return null;
+            Node<K, V> agent = sentinel;
+            for (int r = Math.min(level, height - 1); r >= 1; r--) {
+                while (agent.next[r] != null && agent.next[r].key.compareTo(current.key) <= 0)
+                    agent = agent.next[r];
+                int count = 0;
+                for (Node<K, V> x = agent.next[r]; x != null && below(x, fence); x = x.next[r])
+                    count++;
+                if (count == 0)
+                    continue;
+                Node<K, V> split = agent.next[r];
+                for (int k = 0; k < count / 2; k++)
+                    split = split.next[r];
+                long half = estimate >>> 1;
+                RangeSpliterator prefix = new RangeSpliterator(current, split.key, r, half, false);
+                current = split;
+                level = r;
+                estimate -= half;
+                sized = false;
+                return prefix;
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | NONNULL | (sized ? SIZED : 0);
+        }
+
+        @Override
+        public Comparator<? super Map.Entry<K, V>> getComparator() {
+            // Entries are not Comparable, so null (natural order) would be wrong
+            return Map.Entry.comparingByKey();
+        }
+    }
+
+    // ==================== NODES ====================
+
+    static class Node<K, V> implements Map.Entry<K, V> {
+        final Node<K, V> next[];
+
+        final K key;
+
+        V value;
+
+        @SuppressWarnings("unchecked")
+        Node(K key, V value, int height) {
+            next = (Node<K, V>[]) new Node<?, ?>[1 + height]; // 1 is for the level-0
+            this.key = key;
+            this.value = value;
+        }
+
+        public int getHeight() {
+            return next.length - 1;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Draws a node height: the count of trailing one bits of a random int
+     * (geometric, p = 1/2), from a per-instance xorshift32 generator.
+     */
+    public int flip_a_coin() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
+    }
+}
@@ -1,25 +1,53 @@
 
-import java.util.Random;
+import java.util.Arrays;
 import java.util.Stack;
 
 public class SkipList_1 {
     Node sentinel;
 
+    private Node[] pred_nodes; // reused by add; pred_nodes[r] is the level-r predecessor
+
+    private int seed; // xorshift32 state for pick_height, never zero
+
     public SkipList_1() {
         // Infinitely small value
         sentinel = new Node(Integer.MIN_VALUE, 1);
+        pred_nodes = new Node[sentinel.next.length];
+        seed = (int) System.nanoTime() | 1;
     }
 
     public void add(Integer data) {
-        Stack<Node> pred_nodes = findPathToNode(data);
-        int height = Node.pick_height();
+        int height = pick_height();
+        if (height >= sentinel.next.length) { // sentinel must be at least as tall as any node
+            sentinel.next = Arrays.copyOf(sentinel.next, height + 1);
+            pred_nodes = new Node[sentinel.next.length];
+        }
+        Node agent = sentinel;
+        for (int r = sentinel.next.length - 1; r >= 0; r--) {
+            while (agent.next[r] != null && agent.next[r].data < data)
+                agent = agent.next[r];
+            pred_nodes[r] = agent;
+        }
         Node new_node = new Node(data, height);
 
         for (int i = 0; i < new_node.next.length; i++) {
-            new_node.next[i] = pred_nodes.peek().next[i];
-            pred_nodes.pop().next[i] = new_node;
+            new_node.next[i] = pred_nodes[i].next[i];
+            pred_nodes[i].next[i] = new_node;
         }
+        Arrays.fill(pred_nodes, null);
+    }
 
+    /**
+     * Picks a node height: the count of trailing one bits of a random int
+     * (geometric, p = 1/2), drawn from a per-instance xorshift32 generator.
+     */
+    public int pick_height() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
     }
 
     public Node findPredNode(Integer data) {
@@ -56,16 +84,5 @@ public class SkipList_1 {
             next = new Node[1 + height]; // 1 is for the level-0
             this.data = data;
         }
-
-        public static int pick_height() {
-            int coin = (new Random()).nextInt();
-            int mask = 1;
-            int k = 0;
-            while ((mask & coin) != 0) {
-                mask <<= 1;
-                k++;
-            }
-            return k;
-        }
     }
 }
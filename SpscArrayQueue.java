@@ -0,0 +1,212 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/**
+ * SpscArrayQueue is a lock-free, fixed-capacity ring buffer for exactly one
+ * producer thread and one consumer thread.
+ * It keeps the ArrayQueue circular-array design (addLast / removeFirst) but
+ * the capacity is rounded up to a power of two, so slots are located with
+ * a mask instead of a modulo.
+ *
+ * The producer owns tail and the consumer owns head. Each side publishes its
+ * counter with a release store and reads the other side's counter with an
+ * acquire load, and only when its cached copy says the ring is full/empty.
+ * The counters live on separate, padded cache lines so the two threads do not
+ * false-share. drainTo and offerAll move a whole batch per fence.
+ */
+public class SpscArrayQueue extends SpscHead {
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SpscHead.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SpscTail.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    long p30, p31, p32, p33, p34, p35, p36, p37; // pads head away from later objects
+
+    /**
+     * Constructs an empty queue able to hold at least capacity elements.
+     *
+     * @param capacity Requested capacity, rounded up to a power of two.
+     * @throws IllegalArgumentException if capacity < 1 or > 2^30.
+     */
+    public SpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Adds an element to the back of the queue. Producer thread only.
+     *
+     * @param data The element to add (must not be null).
+     * @return True if added, false if the queue is full.
+     */
+    public boolean addLast(Object data) {
+        if (data == null)
+            throw new NullPointerException();
+        long t = tail;
+        if (t - headCache >= buffer.length) {
+            headCache = (long) HEAD.getAcquire(this);
+            if (t - headCache >= buffer.length)
+                return false;
+        }
+        buffer[(int) t & mask] = data;
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    /**
+     * Adds as many elements of src as currently fit, publishing them with a
+     * single release store. Producer thread only.
+     *
+     * @param src Elements to add, front to back (must not contain null).
+     * @return The number of elements added, starting from src[0].
+     */
+    public int offerAll(Object[] src) {
+        long t = tail;
+        long free = buffer.length - (t - headCache);
+        if (free < src.length) {
+            headCache = (long) HEAD.getAcquire(this);
+            free = buffer.length - (t - headCache);
+        }
+        int count = (int) Math.min(free, src.length);
+        for (int i = 0; i < count; i++) {
+            if (src[i] == null)
+                throw new NullPointerException("Element " + i + " is null");
+            buffer[(int) (t + i) & mask] = src[i];
+        }
+        if (count > 0)
+            TAIL.setRelease(this, t + count);
+        return count;
+    }
+
+    /**
+     * Removes and returns the element at the front of the queue.
+     * Consumer thread only.
+     *
+     * @return The element removed, or null if the queue is empty.
+     */
+    public Object removeFirst() {
+        long h = head;
+        if (h >= tailCache) {
+            tailCache = (long) TAIL.getAcquire(this);
+            if (h >= tailCache)
+                return null;
+        }
+        int index = (int) h & mask;
+        Object val = buffer[index];
+        buffer[index] = null;
+        HEAD.setRelease(this, h + 1);
+        return val;
+    }
+
+    /**
+     * Removes up to max elements from the front of the queue and hands them to
+     * consumer in order, releasing their slots with a single release store.
+     * Consumer thread only.
+     *
+     * @param consumer Receives each removed element.
+     * @param max      Upper bound on the number of elements removed.
+     * @return The number of elements removed.
+     * @throws IllegalArgumentException if max < 0.
+     */
+    public int drainTo(Consumer<Object> consumer, int max) {
+        if (max < 0)
+            throw new IllegalArgumentException("Negative max: " + max);
+        long h = head;
+        long available = tailCache - h;
+        if (available < max) {
+            tailCache = (long) TAIL.getAcquire(this);
+            available = tailCache - h;
+        }
+        int count = (int) Math.min(available, max);
+        for (int i = 0; i < count; i++) {
+            int index = (int) (h + i) & mask;
+            Object val = buffer[index];
+            buffer[index] = null;
+            consumer.accept(val);
+        }
+        if (count > 0)
+            HEAD.setRelease(this, h + count);
+        return count;
+    }
+
+    /**
+     * Returns the number of elements in the queue. The value is exact only
+     * when neither thread is concurrently modifying the queue.
+     *
+     * @return Current size of the queue.
+     */
+    public int size() {
+        long h = (long) HEAD.getAcquire(this);
+        long t = (long) TAIL.getAcquire(this);
+        return (int) Math.max(0, t - h);
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return True if the queue contains no elements, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the fixed number of slots in the ring.
+     *
+     * @return The capacity of the queue.
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
+
+/** Immutable ring state plus leading padding. */
+abstract class SpscRing {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+
+    final Object[] buffer; // The ring, length is a power of two.
+    final int mask; // buffer.length - 1
+
+    SpscRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+}
+
+/** Producer-owned counters on their own cache line. */
+abstract class SpscTail extends SpscRing {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    long tail; // Next sequence the producer writes; published with release.
+    long headCache; // Producer's last observed head.
+
+    SpscTail(int capacity) {
+        super(capacity);
+    }
+}
+
+/** Consumer-owned counters on their own cache line. */
+abstract class SpscHead extends SpscTail {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    long head; // Next sequence the consumer reads; published with release.
+    long tailCache; // Consumer's last observed tail.
+
+    SpscHead(int capacity) {
+        super(capacity);
+    }
+}
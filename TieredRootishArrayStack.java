@@ -0,0 +1,390 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * TieredRootishArrayStack is a RootishArrayStack in tiered-vector mode:
+ * blocks still have sizes 1, 2, 3, ... and every block but the last is
+ * full, so index i is still in block i2b(i), but each block is its own
+ * circular buffer with a head offset.
+ *
+ * Inserting or removing at index i shifts elements only inside the block
+ * holding i, then passes one element across each later block. Since a full
+ * block is a ring, moving its last element out and a new first element in
+ * just moves its head, so each of those blocks costs O(1). add(i, x) and
+ * remove(i) are therefore O(√n) and get/set stay O(1).
+ */
+public class TieredRootishArrayStack<T> implements ListInterface<T>, Iterable<T> {
+    private Object[][] blocks; // blocks[b] has length b + 1; only the first r are allocated
+    private int[] heads; // heads[b] is the slot of block b's first element
+    private int r; // number of blocks in use
+    private int n; // total number of elements
+    private int mod_count; // structural changes, for fail-fast iterators
+
+    /** Constructs an empty TieredRootishArrayStack with one block of size 1. */
+    public TieredRootishArrayStack() {
+        blocks = new Object[4][];
+        heads = new int[4];
+        blocks[0] = new Object[1];
+        r = 1;
+        n = 0;
+    }
+
+    /** Total slots held by the first r blocks. */
+    private static long capacityOf(int r) {
+        return (long) r * (r + 1) / 2;
+    }
+
+    /** Slot of logical position j in block b; head + j < 2(b + 1), so one subtraction wraps it. */
+    private int slot(int b, int j) {
+        int k = heads[b] + j;
+        return k > b ? k - (b + 1) : k;
+    }
+
+    /**
+     * Moves the count elements starting at slot start of ring a one slot
+     * forward (toward higher slots, wrapping), in at most two arraycopy runs.
+     */
+    private static void moveForward(Object[] a, int start, int count) {
+        int s = a.length;
+        if (start + count < s) {
+            System.arraycopy(a, start, a, start + 1, count);
+            return;
+        }
+        System.arraycopy(a, 0, a, 1, start + count - s); // wrapped part
+        a[0] = a[s - 1];
+        System.arraycopy(a, start, a, start + 1, s - 1 - start);
+    }
+
+    /**
+     * Moves the count elements starting at slot start of ring a one slot
+     * backward (toward lower slots, wrapping), in at most two arraycopy runs.
+     */
+    private static void moveBackward(Object[] a, int start, int count) {
+        if (count == 0)
+            return;
+        int s = a.length;
+        if (start == 0) {
+            a[s - 1] = a[0];
+            System.arraycopy(a, 1, a, 0, count - 1);
+        } else if (start + count <= s) {
+            System.arraycopy(a, start, a, start - 1, count);
+        } else {
+            System.arraycopy(a, start, a, start - 1, s - start);
+            a[s - 1] = a[0];
+            System.arraycopy(a, 1, a, 0, start + count - s - 1);
+        }
+    }
+
+    /** Inserts data at index, shifting later elements right. O(√n). */
+    @Override
+    public void add(int index, T data) {
+        if (index < 0 || index > n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        if (capacityOf(r) < (long) n + 1)
+            grow();
+
+        int tb = IntRootishArrayStack.i2b(n); // tail block, receives the new slot
+        int ib = IntRootishArrayStack.i2b(index);
+        int ij = index - IntRootishArrayStack.firstIndex(ib);
+        if (ib == tb) {
+            insertInBlock(tb, ij, n - IntRootishArrayStack.firstIndex(tb), data);
+        } else {
+            // Block ib is full: its last element moves on to block ib + 1.
+            Object carry = insertInFullBlock(ib, ij, data);
+            for (int b = ib + 1; b < tb; b++) {
+                int h = heads[b] == 0 ? b : heads[b] - 1; // slot of the last element
+                Object out = blocks[b][h];
+                blocks[b][h] = carry; // ... which becomes the new first element
+                heads[b] = h;
+                carry = out;
+            }
+            int h = heads[tb] == 0 ? tb : heads[tb] - 1; // free slot before the tail's head
+            blocks[tb][h] = carry;
+            heads[tb] = h;
+        }
+        n++;
+        mod_count++;
+    }
+
+    /** Appends data at the end. */
+    @Override
+    public void add(T data) {
+        if (capacityOf(r) < (long) n + 1)
+            grow();
+        int tb = IntRootishArrayStack.i2b(n);
+        blocks[tb][slot(tb, n - IntRootishArrayStack.firstIndex(tb))] = data;
+        n++;
+        mod_count++;
+    }
+
+    /** Inserts data at position j of block b holding count < b + 1 elements, moving the shorter side. */
+    private void insertInBlock(int b, int j, int count, Object data) {
+        Object[] a = blocks[b];
+        if (j < count - j) {
+            int h = heads[b] == 0 ? b : heads[b] - 1;
+            moveBackward(a, heads[b], j);
+            heads[b] = h;
+        } else {
+            moveForward(a, slot(b, j), count - j);
+        }
+        a[slot(b, j)] = data;
+    }
+
+    /**
+     * Inserts data at position j of the full block b and returns the element
+     * pushed off its end, moving the shorter side.
+     */
+    private Object insertInFullBlock(int b, int j, Object data) {
+        Object[] a = blocks[b];
+        int last = heads[b] == 0 ? b : heads[b] - 1;
+        Object out = a[last];
+        if (j < b - j) {
+            // The freed last slot becomes the new head; elements 0..j-1 move back into it.
+            moveBackward(a, heads[b], j);
+            heads[b] = last;
+        } else {
+            moveForward(a, slot(b, j), b - j);
+        }
+        a[slot(b, j)] = data;
+        return out;
+    }
+
+    /** Removes and returns the element at index, shifting later elements left. O(√n). */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+
+        int tb = IntRootishArrayStack.i2b(n - 1); // block holding the last element
+        int ib = IntRootishArrayStack.i2b(index);
+        int ij = index - IntRootishArrayStack.firstIndex(ib);
+        T removed;
+        if (ib == tb) {
+            removed = (T) removeInBlock(tb, ij, n - IntRootishArrayStack.firstIndex(tb));
+        } else {
+            // Take the tail's first element and pass it back, block by block,
+            // as the new last element of each full block.
+            Object[] a = blocks[tb];
+            Object carry = a[heads[tb]];
+            a[heads[tb]] = null;
+            heads[tb] = heads[tb] == tb ? 0 : heads[tb] + 1;
+            for (int b = tb - 1; b > ib; b--) {
+                int h = heads[b];
+                Object out = blocks[b][h];
+                blocks[b][h] = carry; // the slot after the last element
+                heads[b] = h == b ? 0 : h + 1;
+                carry = out;
+            }
+            removed = (T) removeInFullBlock(ib, ij, carry);
+        }
+        n--;
+        mod_count++;
+
+        if (capacityOf(r - 2) >= n)
+            shrink();
+        return removed;
+    }
+
+    /** Removes position j of block b holding count elements, moving the shorter side. */
+    private Object removeInBlock(int b, int j, int count) {
+        Object[] a = blocks[b];
+        Object removed = a[slot(b, j)];
+        if (j < count - 1 - j) {
+            moveForward(a, heads[b], j);
+            a[heads[b]] = null;
+            heads[b] = heads[b] == b ? 0 : heads[b] + 1;
+        } else {
+            moveBackward(a, slot(b, j + 1), count - 1 - j);
+            a[slot(b, count - 1)] = null;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes position j of the full block b and appends carry as its last
+     * element, moving the shorter side.
+     */
+    private Object removeInFullBlock(int b, int j, Object carry) {
+        Object[] a = blocks[b];
+        Object removed = a[slot(b, j)];
+        if (j < b - j) {
+            // Elements 0..j-1 move forward over j; the freed head slot takes carry and becomes the last.
+            int h = heads[b];
+            moveForward(a, h, j);
+            a[h] = carry;
+            heads[b] = h == b ? 0 : h + 1;
+        } else {
+            moveBackward(a, slot(b, j + 1), b - j);
+            a[slot(b, b)] = carry;
+        }
+        return removed;
+    }
+
+    /** Replaces the element at index with data and returns the old one. */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T data) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        int b = IntRootishArrayStack.i2b(index);
+        int k = slot(b, index - IntRootishArrayStack.firstIndex(b));
+        T old = (T) blocks[b][k];
+        blocks[b][k] = data;
+        return old;
+    }
+
+    /** Returns the element at index. O(1). */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        int b = IntRootishArrayStack.i2b(index);
+        return (T) blocks[b][slot(b, index - IntRootishArrayStack.firstIndex(b))];
+    }
+
+    /** True if some element equals data. */
+    @Override
+    public boolean contains(Object data) {
+        int left = n;
+        for (int b = 0; left > 0; b++) {
+            Object[] block = blocks[b];
+            int len = Math.min(left, block.length);
+            for (int j = 0; j < len; j++)
+                if (Objects.equals(block[slot(b, j)], data))
+                    return true;
+            left -= len;
+        }
+        return false;
+    }
+
+    /** Adds a new, empty block of size r + 1. */
+    private void grow() {
+        if (r == blocks.length) {
+            Object[][] new_blocks = new Object[2 * r][];
+            System.arraycopy(blocks, 0, new_blocks, 0, r);
+            blocks = new_blocks;
+            int[] new_heads = new int[2 * r];
+            System.arraycopy(heads, 0, new_heads, 0, r);
+            heads = new_heads;
+        }
+        blocks[r] = new Object[r + 1];
+        heads[r] = 0;
+        r++;
+    }
+
+    /** Releases trailing blocks while at least two of them are unused. */
+    private void shrink() {
+        while (r > 1 && capacityOf(r - 2) >= n)
+            blocks[--r] = null;
+    }
+
+    /**
+     * Performs action on every element in order, one block at a time, each
+     * ring as its two contiguous runs.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        int expected = mod_count;
+        int left = n;
+        for (int b = 0; left > 0; b++) {
+            Object[] block = blocks[b];
+            int len = Math.min(left, block.length);
+            int h = heads[b];
+            int first = Math.min(len, block.length - h);
+            for (int k = h; k < h + first; k++)
+                action.accept((T) block[k]);
+            for (int k = 0; k < len - first; k++)
+                action.accept((T) block[k]);
+            left -= len;
+        }
+        if (mod_count != expected)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            int index; // index of the element next() returns
+            int b; // block of index
+            int j; // position of index within block b
+            final int expected = mod_count;
+
+            @Override
+            public boolean hasNext() {
+                return index < n;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (mod_count != expected)
+                    throw new ConcurrentModificationException();
+                if (index >= n)
+                    throw new NoSuchElementException();
+                T val = (T) blocks[b][slot(b, j)];
+                index++;
+                if (++j > b) { // past the last position of block b
+                    b++;
+                    j = 0;
+                }
+                return val;
+            }
+        };
+    }
+
+    /** Returns number of stored elements. */
+    @Override
+    public int size() {
+        return n;
+    }
+
+    /** Clears all data. */
+    @Override
+    public void clear() {
+        blocks = new Object[4][];
+        heads = new int[4];
+        blocks[0] = new Object[1];
+        r = 1;
+        n = 0;
+        mod_count++;
+    }
+
+    /** True if the list is empty. */
+    @Override
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /** Prints the linear view and each block's ring with its head. */
+    public void print() {
+        System.out.println("\n--- TieredRootishArrayStack State ---");
+        System.out.println("n = " + n + ", blocks = " + r);
+        System.out.print("Linear view: [");
+        for (int i = 0; i < n; i++) {
+            System.out.print(get(i));
+            if (i < n - 1)
+                System.out.print(", ");
+        }
+        System.out.println("]");
+
+        System.out.println("Block structure:");
+        for (int b = 0; b < r; b++) {
+            System.out.print("  Block " + b + " (head " + heads[b] + "): [");
+            Object[] block = blocks[b];
+            for (int j = 0; j < block.length; j++) {
+                System.out.print(block[j] != null ? block[j] : "_");
+                if (j < block.length - 1)
+                    System.out.print(", ");
+            }
+            System.out.println("]");
+        }
+        System.out.println("-------------------------------------\n");
+    }
+}
@@ -0,0 +1,417 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * VersionedSkipList is a SkipList with multi-version snapshot reads.
+ * Writers (add/remove) are serialized by a lock and stamp every change with
+ * a new version number: a node records the version that added it (born) and
+ * the version that removed it (died), and remove() only sets died, leaving
+ * the node linked. A reader pinned at version v sees exactly the nodes with
+ * born <= v < died, so it never blocks a writer and is never disturbed by one.
+ *
+ * snapshot() is amortized O(1): it pins the current version and size, and
+ * closed snapshots leave the registry as soon as no older one is open.
+ * Removed nodes are queued and reclaim() unlinks those that died at or
+ * before the oldest open snapshot, since no reader can see them any more;
+ * writers also reclaim in batches as removed nodes pile up.
+ *
+ * find() and contains() read the current version without a snapshot. They
+ * announce themselves in a reader count for the current epoch instead, and
+ * reclaim only advances the epoch once the previous epoch's count drains: a
+ * node removed in epoch e is unlinked once the epoch reaches e + 2, when no
+ * unpinned reader that could still see it is left.
+ */
+public class VersionedSkipList {
+    final static int MAX_HEIGHT = 16;
+
+    private static final int RECLAIM_BATCH = 64; // removed nodes queued before a writer reclaims
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    final Node sentinel;
+    private volatile int height; // levels in use; only grows
+
+    private volatile Version current; // latest committed version and its size
+
+    private final ReentrantLock writer = new ReentrantLock();
+    private final Node[] travelled_path = new Node[MAX_HEIGHT + 1]; // reused by add/remove, under the writer lock
+    private final ArrayDeque<Node> retired = new ArrayDeque<>(); // removed, still linked, in died order
+    private final ArrayDeque<Snapshot> snapshots = new ArrayDeque<>(); // open snapshots, oldest first
+
+    private volatile long epoch; // advanced by reclaim once no unpinned reader of the previous one is left
+    private final AtomicInteger[] readers = { new AtomicInteger(), new AtomicInteger() }; // unpinned reads in flight, by epoch parity
+
+    private int seed; // xorshift32 state for flip_a_coin, never zero; used under the writer lock
+
+    public VersionedSkipList() {
+        sentinel = new Node(Integer.MIN_VALUE, MAX_HEIGHT, 0);
+        height = 0;
+        current = new Version(0, 0);
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    /** A committed version number and the number of values visible at it. */
+    private static final class Version {
+        final long number;
+        final int size;
+
+        Version(long number, int size) {
+            this.number = number;
+            this.size = size;
+        }
+    }
+
+    private static Node load(Node node, int r) {
+        return (Node) NEXT.getAcquire(node.next, r);
+    }
+
+    private static void store(Node node, int r, Node next) {
+        NEXT.setRelease(node.next, r, next);
+    }
+
+    /**
+     * Returns the last node whose value is < data (possibly the sentinel),
+     * ignoring versions: removed and not-yet-committed nodes keep their place.
+     */
+    private Node findPredNode(Integer data) {
+        Node agent = sentinel;
+        for (int r = height - 1; r >= 0; r--) {
+            Node next;
+            while ((next = load(agent, r)) != null && Integer.compare(data, next.data) > 0)
+                agent = next;
+        }
+        return agent;
+    }
+
+    /** Returns the first node after pred that is visible at version. */
+    private static Node firstVisible(Node pred, long version) {
+        Node node = load(pred, 0);
+        while (node != null && !node.visibleAt(version))
+            node = load(node, 0);
+        return node;
+    }
+
+    /** Smallest value >= data visible at version, or null. */
+    private Integer find(Integer data, long version) {
+        Node node = firstVisible(findPredNode(data), version);
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Returns the smallest value >= data, or null if there is none.
+     */
+    public Integer find(Integer data) {
+        AtomicInteger pin = pin();
+        try {
+            return find(data, current.number);
+        } finally {
+            pin.decrementAndGet();
+        }
+    }
+
+    /**
+     * Counts an unpinned reader in the current epoch and returns its counter,
+     * which the reader decrements when done.
+     */
+    private AtomicInteger pin() {
+        for (;;) {
+            long e = epoch;
+            AtomicInteger count = readers[(int) e & 1];
+            count.incrementAndGet();
+            if (epoch == e)
+                return count;
+            count.decrementAndGet(); // the epoch moved on meanwhile; join the new one
+        }
+    }
+
+    /** True if data is present. */
+    public boolean contains(Integer data) {
+        return data.equals(find(data));
+    }
+
+    public int size() {
+        return current.size;
+    }
+
+    /** Fills travelled_path with the level-r predecessors of data; returns the level-0 one. */
+    private Node findPath(Integer data) {
+        Node agent = sentinel;
+        for (int r = MAX_HEIGHT; r >= 0; r--) {
+            Node next;
+            while ((next = agent.next[r]) != null && Integer.compare(data, next.data) > 0)
+                agent = next;
+            travelled_path[r] = agent;
+        }
+        return agent;
+    }
+
+    /** Returns the live node holding data among pred's successors, or null. */
+    private static Node findLive(Node pred, Integer data) {
+        for (Node node = pred.next[0]; node != null && node.data.equals(data); node = node.next[0])
+            if (node.died == Long.MAX_VALUE)
+                return node;
+        return null;
+    }
+
+    public boolean add(Integer data) {
+        writer.lock();
+        try {
+            Version v = current;
+            Node pred = findPath(data);
+            if (findLive(pred, data) != null)
+                return false; // Already exists
+            // A removed node with the same value may still be linked for old
+            // snapshots; the new one goes in front of it.
+            Node new_node = new Node(data, Math.min(flip_a_coin(), MAX_HEIGHT), v.number + 1);
+            for (int r = 0; r <= new_node.getHeight(); r++) {
+                new_node.next[r] = travelled_path[r].next[r];
+                store(travelled_path[r], r, new_node);
+            }
+            if (new_node.getHeight() >= height)
+                height = new_node.getHeight() + 1;
+            current = new Version(v.number + 1, v.size + 1); // commit
+            return true;
+        } finally {
+            Arrays.fill(travelled_path, null);
+            writer.unlock();
+        }
+    }
+
+    public boolean remove(Integer data) {
+        writer.lock();
+        try {
+            Version v = current;
+            Node victim = findLive(findPath(data), data);
+            if (victim == null)
+                return false; // Not present
+            victim.died = v.number + 1;
+            victim.retired_epoch = epoch;
+            current = new Version(v.number + 1, v.size - 1); // commit
+            retired.addLast(victim);
+            if (retired.size() >= RECLAIM_BATCH)
+                reclaimLocked();
+            return true;
+        } finally {
+            Arrays.fill(travelled_path, null);
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Pins the current version. The snapshot reads the list as it was when
+     * it was taken until it is closed; until then nodes it can see are not
+     * reclaimed.
+     */
+    public Snapshot snapshot() {
+        synchronized (snapshots) {
+            dropClosedSnapshots();
+            Snapshot s = new Snapshot(current);
+            snapshots.addLast(s); // versions only grow, so the deque stays oldest first
+            return s;
+        }
+    }
+
+    /**
+     * Pops closed snapshots off the front of the deque. Called with the
+     * snapshots lock held; a closed snapshot behind an open one waits until
+     * that one is closed too.
+     */
+    private void dropClosedSnapshots() {
+        while (!snapshots.isEmpty() && snapshots.peekFirst().closed)
+            snapshots.removeFirst();
+    }
+
+    /**
+     * Unlinks removed nodes that no open snapshot or in-flight find() can see.
+     *
+     * @return The number of nodes unlinked.
+     */
+    public int reclaim() {
+        writer.lock();
+        try {
+            return reclaimLocked();
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    private int reclaimLocked() {
+        long horizon; // every open snapshot is at this version or later
+        synchronized (snapshots) {
+            dropClosedSnapshots();
+            horizon = snapshots.isEmpty() ? current.number : snapshots.peekFirst().version;
+        }
+        // Moving from epoch e to e + 1 needs the readers of e - 1, which share
+        // a counter with e + 1, to be gone; then nodes retired in e - 1 or
+        // earlier are out of every unpinned reader's reach.
+        long e = epoch;
+        for (int i = 0; i < 2 && readers[(int) (e + 1) & 1].get() == 0; i++)
+            epoch = ++e;
+        int unlinked = 0;
+        while (!retired.isEmpty() && retired.peekFirst().died <= horizon
+                && retired.peekFirst().retired_epoch <= e - 2) {
+            unlink(retired.removeFirst());
+            unlinked++;
+        }
+        return unlinked;
+    }
+
+    /**
+     * Unlinks node on every level. Its own links are left intact, so a reader
+     * standing on it still finds its way forward.
+     */
+    private void unlink(Node node) {
+        Node agent = sentinel;
+        for (int r = MAX_HEIGHT; r >= 0; r--) {
+            Node next;
+            while ((next = agent.next[r]) != null && Integer.compare(node.data, next.data) > 0)
+                agent = next;
+            if (r > node.getHeight())
+                continue;
+            Node pred = agent;
+            while ((next = pred.next[r]) != node) // skip other versions of the same value
+                pred = next;
+            store(pred, r, node.next[r]);
+        }
+    }
+
+    /** Returns the number of removed nodes still linked, waiting for reclaim(). */
+    public int retiredCount() {
+        writer.lock();
+        try {
+            return retired.size();
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * A read-only view of the list pinned at one version. Reads take no
+     * locks; close() releases the version for reclamation.
+     */
+    public final class Snapshot implements AutoCloseable, Iterable<Integer> {
+        final long version;
+        private final int size;
+        private volatile boolean closed;
+
+        private Snapshot(Version v) {
+            version = v.number;
+            size = v.size;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        /**
+         * Returns the smallest value >= data at this version, or null.
+         */
+        public Integer find(Integer data) {
+            checkOpen();
+            return VersionedSkipList.this.find(data, version);
+        }
+
+        public boolean contains(Integer data) {
+            return data.equals(find(data));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Iterates the values v with from <= v < to at this version. */
+        public Iterator<Integer> range(Integer from, Integer to) {
+            return walk(from, to);
+        }
+
+        /** Iterates the values >= from and below to at this version; no upper bound if to is null. */
+        private Iterator<Integer> walk(Integer from, Integer to) {
+            checkOpen();
+            return new Iterator<Integer>() {
+                Node next = bounded(firstVisible(findPredNode(from), version));
+
+                Node bounded(Node node) {
+                    return node != null && (to == null || Integer.compare(node.data, to) < 0) ? node : null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Integer next() {
+                    if (next == null)
+                        throw new NoSuchElementException();
+                    checkOpen();
+                    Integer val = next.data;
+                    next = bounded(firstVisible(next, version));
+                    return val;
+                }
+            };
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return walk(Integer.MIN_VALUE, null);
+        }
+
+        private void checkOpen() {
+            if (closed)
+                throw new IllegalStateException("Snapshot is closed");
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            synchronized (snapshots) {
+                dropClosedSnapshots();
+            }
+        }
+    }
+
+    public static class Node {
+        final Node next[]; // written through NEXT once the node is published
+
+        final Integer data;
+
+        final long born; // version that added the node
+
+        volatile long died = Long.MAX_VALUE; // version that removed it
+
+        long retired_epoch; // reclaim epoch in which it was removed; used under the writer lock
+
+        Node(Integer data, int height, long born) {
+            next = new Node[1 + height]; // 1 is for the level-0
+            this.data = data;
+            this.born = born;
+        }
+
+        boolean visibleAt(long version) {
+            return born <= version && version < died;
+        }
+
+        public int getHeight() {
+            return next.length - 1;
+        }
+    }
+
+    /**
+     * Draws a node height: the count of trailing one bits of a random int
+     * (geometric, p = 1/2), from a per-instance xorshift32 generator.
+     */
+    public int flip_a_coin() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return Integer.numberOfTrailingZeros(~x);
+    }
+}
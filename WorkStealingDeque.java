@@ -0,0 +1,140 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * WorkStealingDeque is a Chase-Lev work-stealing deque on a circular array.
+ * Like ArrayDeque it addresses a growable ring with a running index, but the
+ * two ends are owned by different threads:
+ * the owner thread pushes and pops at the back (addLast / removeLast) with
+ * plain writes and ordered stores, needing a CAS only when it races a thief
+ * for the very last element; any other thread may steal from the front
+ * (removeFirst) with a single CAS on top.
+ *
+ * Elements are published by a release store of bottom, so a thief that reads
+ * bottom with acquire semantics sees a fully written slot.
+ */
+public class WorkStealingDeque {
+
+    private static final VarHandle TOP;
+    private static final VarHandle BOTTOM;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TOP = lookup.findVarHandle(WorkStealingDeque.class, "top", long.class);
+            BOTTOM = lookup.findVarHandle(WorkStealingDeque.class, "bottom", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Object[] array; // The ring, length is a power of two.
+
+    private long top; // Index of the front element; advanced by thieves (and the owner) via CAS.
+
+    private long bottom; // Index one past the back element; written only by the owner.
+
+    /**
+     * Constructs an empty deque with an initial capacity of 16.
+     */
+    public WorkStealingDeque() {
+        array = new Object[16];
+    }
+
+    /**
+     * Doubles the ring, copying the live range [t, b). Owner thread only.
+     */
+    private Object[] resize(Object[] a, long t, long b) {
+        Object[] new_array = new Object[a.length * 2];
+        for (long i = t; i < b; i++)
+            new_array[(int) i & (new_array.length - 1)] = a[(int) i & (a.length - 1)];
+        array = new_array;
+        return new_array;
+    }
+
+    /**
+     * Pushes an element onto the back of the deque. Owner thread only.
+     *
+     * @param data The element to add (must not be null).
+     */
+    public void addLast(Object data) {
+        if (data == null)
+            throw new NullPointerException();
+        long b = bottom;
+        long t = (long) TOP.getAcquire(this);
+        Object[] a = array;
+        if (b - t > a.length - 1)
+            a = resize(a, t, b);
+        SLOT.setRelease(a, (int) b & (a.length - 1), data);
+        BOTTOM.setRelease(this, b + 1);
+    }
+
+    /**
+     * Pops the element at the back of the deque. Owner thread only.
+     *
+     * @return The element removed, or null if the deque is empty or the last
+     *         element was stolen concurrently.
+     */
+    public Object removeLast() {
+        long b = bottom - 1;
+        Object[] a = array;
+        BOTTOM.setOpaque(this, b);
+        VarHandle.fullFence(); // the bottom store must be visible before reading top
+        long t = (long) TOP.getOpaque(this);
+        if (t > b) { // empty
+            BOTTOM.setOpaque(this, b + 1);
+            return null;
+        }
+        int index = (int) b & (a.length - 1);
+        Object val = SLOT.getOpaque(a, index);
+        if (t == b) { // last element: race the thieves for it
+            if (!TOP.compareAndSet(this, t, t + 1))
+                val = null;
+            BOTTOM.setOpaque(this, b + 1);
+            return val;
+        }
+        SLOT.setOpaque(a, index, null);
+        return val;
+    }
+
+    /**
+     * Steals the element at the front of the deque. Safe from any thread.
+     *
+     * @return The element removed, or null if the deque was empty or another
+     *         thread won the race for the front element.
+     */
+    public Object removeFirst() {
+        long t = (long) TOP.getAcquire(this);
+        VarHandle.fullFence();
+        long b = (long) BOTTOM.getAcquire(this);
+        if (t >= b)
+            return null;
+        Object[] a = array;
+        Object val = SLOT.getAcquire(a, (int) t & (a.length - 1));
+        if (!TOP.compareAndSet(this, t, t + 1))
+            return null;
+        return val;
+    }
+
+    /**
+     * Returns the number of elements in the deque. Exact only when no other
+     * thread is modifying it.
+     *
+     * @return The size of the deque
+     */
+    public int size() {
+        long b = (long) BOTTOM.getAcquire(this);
+        long t = (long) TOP.getAcquire(this);
+        return (int) Math.max(0, b - t);
+    }
+
+    /**
+     * Checks if the deque is empty.
+     *
+     * @return True if the deque contains no elements, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}